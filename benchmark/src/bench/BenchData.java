@@ -0,0 +1,66 @@
+package bench;
+
+import domain.Armour;
+import domain.Consumable;
+import domain.Inventory;
+import domain.Item;
+import domain.Weapon;
+import domain.enums.ArmourSlot;
+import domain.enums.HandType;
+import domain.enums.Rarity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fælles testdata til benchmarks: tilfældige items og inventories af en given størrelse.
+final class BenchData {
+
+    // standard-størrelser fra et almindeligt inventory (32 slots) op til bank/lager-størrelse
+    static final int[] DEFAULT_SIZES = {32, 1_024, 32_768, 1_000_000};
+
+    private BenchData() { }
+
+    // Unikke navne, så der ikke sker stacking når listen lægges i et inventory
+    static List<Item> randomItems(int n, Random random) {
+        Rarity[] rarities = Rarity.values();
+        List<Item> items = new ArrayList<>(n);
+
+        for (int i = 0; i < n; i++) {
+            Rarity rarity = rarities[random.nextInt(rarities.length)];
+            double weight = 0.1 + random.nextInt(200) / 10.0;
+
+            switch (random.nextInt(3)) {
+                case 0 -> items.add(new Weapon("Weapon " + i, rarity, weight, random.nextInt(100), HandType.ONE_HAND));
+                case 1 -> items.add(new Armour("Armour " + i, rarity, weight, random.nextInt(50), ArmourSlot.CHEST));
+                default -> items.add(new Consumable("Potion " + i, rarity, weight, 1 + random.nextInt(10)));
+            }
+        }
+        return items;
+    }
+
+    // Inventory uden praktiske grænser, så benchmarks ikke rammer maxWeight/slots
+    static Inventory emptyInventory(int capacity) {
+        return new Inventory(Double.MAX_VALUE / 4, capacity, capacity);
+    }
+
+    static Inventory randomInventory(int n, long seed) {
+        Inventory inventory = emptyInventory(n + 1);
+        for (Item item : randomItems(n, new Random(seed))) {
+            inventory.addItem(item);
+        }
+        return inventory;
+    }
+
+    static int[] parseSizes(String[] args) {
+        if (args.length == 0) {
+            return DEFAULT_SIZES;
+        }
+
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i].replace("_", ""));
+        }
+        return sizes;
+    }
+}
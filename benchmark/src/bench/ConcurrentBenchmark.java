@@ -0,0 +1,205 @@
+package bench;
+
+import domain.Consumable;
+import domain.Inventory;
+import domain.Item;
+import domain.SharedStash;
+import domain.enums.Rarity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Måler hvordan læsninger skalerer med antal tråde i concurrent-mode (Inventory.enableConcurrentAccess),
+// mens én skrive-tråd løbende tilføjer og fjerner items (ca. én ændring pr. millisekund).
+// Hver læse-tråd laver getTotalWeight (optimistisk) + findItemByName (delt læse-lås).
+//
+// Derefter et delt lager hvor alle tråde skriver: SharedStash (stripes) mod ét Inventory bag én lås.
+// Hver operation lægger én enhed af et tilfældigt navn (ud af 256) i lageret og tager én ud igen.
+// Kør fx: java -cp out bench.ConcurrentBenchmark 4096
+public class ConcurrentBenchmark {
+
+    private static final long WARMUP_NANOS = 300_000_000L;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    private static volatile double sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] sizes = (args.length > 0) ? BenchData.parseSizes(args) : new int[] {4096};
+        int maxThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+        System.out.println("size;readers;ns/op per reader;reads/s total");
+        for (int n : sizes) {
+            Inventory inventory = BenchData.randomInventory(n, 4);
+            inventory.enableConcurrentAccess();
+            List<String> names = new ArrayList<>();
+            for (Item item : inventory.getItems()) {
+                names.add(item.getName());
+            }
+
+            for (int readers = 1; readers <= maxThreads; readers *= 2) {
+                run(n, readers, inventory, names);
+            }
+        }
+
+        System.out.println();
+        System.out.println("container;threads;ns/op per thread;ops/s total");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            runShared("one lock", threads, lockedInventory());
+            runShared("striped", threads, stripedStash());
+        }
+    }
+
+    // --- delt lager ---
+
+    // Det de to lagre skal kunne: læg én enhed i, tag én ud
+    private interface SharedContainer {
+        void depositOne(String name);
+        void withdrawOne(String name);
+    }
+
+    private static final int STASH_NAMES = 256;
+
+    private static SharedContainer lockedInventory() {
+        Inventory inventory = BenchData.emptyInventory(STASH_NAMES);
+        for (int i = 0; i < STASH_NAMES; i++) {
+            inventory.addItem(new Consumable(stashName(i), Rarity.COMMON, 0.1, 1_000));
+        }
+        return new SharedContainer() {
+            @Override
+            public void depositOne(String name) {
+                synchronized (inventory) {
+                    inventory.addItem(new Consumable(name, Rarity.COMMON, 0.1, 1));
+                }
+            }
+
+            @Override
+            public void withdrawOne(String name) {
+                synchronized (inventory) {
+                    Consumable c = (Consumable) inventory.findItemByName(name);
+                    if (c.getStackSize() > 1) {
+                        c.setStackSize(c.getStackSize() - 1);
+                    } else {
+                        inventory.removeItem(c);
+                    }
+                }
+            }
+        };
+    }
+
+    private static SharedContainer stripedStash() {
+        SharedStash stash = new SharedStash(Double.MAX_VALUE / 4, STASH_NAMES);
+        for (int i = 0; i < STASH_NAMES; i++) {
+            stash.deposit(new Consumable(stashName(i), Rarity.COMMON, 0.1, 1_000));
+        }
+        return new SharedContainer() {
+            @Override
+            public void depositOne(String name) {
+                stash.deposit(new Consumable(name, Rarity.COMMON, 0.1, 1));
+            }
+
+            @Override
+            public void withdrawOne(String name) {
+                stash.withdraw(name, 1);
+            }
+        };
+    }
+
+    private static String stashName(int i) {
+        return "Stash Potion " + i;
+    }
+
+    private static void runShared(String label, int threads, SharedContainer container)
+            throws InterruptedException {
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        LongAdder ops = new LongAdder();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers.add(new Thread(() -> {
+                while (!stop.get()) {
+                    String name = stashName(random.nextInt(STASH_NAMES));
+                    container.depositOne(name);
+                    container.withdrawOne(name);
+                    if (measuring.get()) ops.increment();
+                }
+            }));
+        }
+
+        workers.forEach(Thread::start);
+        Thread.sleep(WARMUP_NANOS / 1_000_000);
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(MEASURE_NANOS / 1_000_000);
+        long elapsed = System.nanoTime() - start;
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long total = Math.max(1, ops.sum());
+        System.out.println(String.format(Locale.ROOT, "%s;%d;%d;%d",
+                label, threads, elapsed * threads / total, total * 1_000_000_000L / elapsed));
+    }
+
+    private static void run(int n, int readers, Inventory inventory, List<String> names)
+            throws InterruptedException {
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        LongAdder reads = new LongAdder();
+
+        Thread writer = new Thread(() -> {
+            Consumable potion = new Consumable("Bench Writer Potion", Rarity.COMMON, 0.1, 1);
+            while (!stop.get()) {
+                inventory.addItem(potion);
+                inventory.removeItem(potion);
+                parkMillis();
+            }
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < readers; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                double local = 0;
+                while (!stop.get()) {
+                    local += inventory.getTotalWeight();
+                    Item item = inventory.findItemByName(names.get(random.nextInt(names.size())));
+                    if (item != null) local += item.getWeight();
+                    if (measuring.get()) reads.increment();
+                }
+                sink = local;
+            }));
+        }
+
+        writer.start();
+        threads.forEach(Thread::start);
+        Thread.sleep(WARMUP_NANOS / 1_000_000);
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(MEASURE_NANOS / 1_000_000);
+        long elapsed = System.nanoTime() - start;
+        stop.set(true);
+        writer.join();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = Math.max(1, reads.sum());
+        System.out.println(String.format(Locale.ROOT, "%d;%d;%d;%d",
+                n, readers, elapsed * readers / total, total * 1_000_000_000L / elapsed));
+    }
+
+    private static void parkMillis() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package bench;
+
+import domain.Inventory;
+import domain.Player;
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InventoryFileHandler;
+import service.InventoryService;
+import service.PlayerRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Save/load gennem InventoryFileHandler, journal-mode og PlayerRepository (JMH).
+// Hele filen gemmes/loades pr. kald: del med size for tid pr. item.
+// Kør fx: java -jar target/benchmarks.jar FileBenchmark -p size=1024,32768
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FileBenchmark {
+
+    private static final String[] PLAYERS = {"p0", "p1", "p2", "p3"};
+
+    @Param({"32", "1024", "32768", "1000000"})
+    public int size;
+
+    private Inventory inventory;
+    private Inventory target;
+    private String textPath;
+    private String binPath;
+
+    private InventoryService journalled;
+    private PlayerRepository repository;
+    private int nextPlayer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        inventory = BenchData.randomInventory(size, 4);
+        target = BenchData.emptyInventory(size + 1);
+
+        textPath = tempFile(".txt").getPath();
+        binPath = tempFile(".bin").getPath();
+        if (!InventoryFileHandler.save(inventory, textPath) || !InventoryFileHandler.saveBinary(inventory, binPath)) {
+            throw new IllegalStateException("Could not write bench files");
+        }
+
+        // journal-mode: én ændring koster én kort linje i stedet for en hel save
+        Player player = new Player("Bench");
+        player.setInventory(BenchData.randomInventory(size, 4));
+        journalled = new InventoryService(player);
+        File snapshot = tempFile(".txt");
+        new File(snapshot.getPath() + ".journal").deleteOnExit();
+        if (!snapshot.delete() || !journalled.startJournal(snapshot.getPath())) {
+            throw new IllegalStateException("Could not start journal for " + snapshot);
+        }
+
+        // PlayerRepository med plads til én spiller: hver get() loader en spiller fra disken
+        // og smider den forrige ud (uændret, så der gemmes ikke)
+        File dir = Files.createTempDirectory("inventory-bench-players").toFile();
+        dir.deleteOnExit();
+        for (String name : PLAYERS) {
+            File playerFile = new File(dir, name + PlayerRepository.INVENTORY_SUFFIX);
+            playerFile.deleteOnExit();
+            InventoryFileHandler.save(BenchData.randomInventory(size, 4), playerFile.getPath());
+        }
+        repository = new PlayerRepository(dir.getPath(), 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        journalled.stopJournal();
+    }
+
+    @Benchmark
+    public boolean save() {
+        return InventoryFileHandler.save(inventory, textPath);
+    }
+
+    @Benchmark
+    public boolean saveBinary() {
+        return InventoryFileHandler.saveBinary(inventory, binPath);
+    }
+
+    @Benchmark
+    public Inventory load() {
+        if (!InventoryFileHandler.load(target, textPath)) {
+            throw new IllegalStateException("Load failed for " + textPath);
+        }
+        return target;
+    }
+
+    @Benchmark
+    public Inventory loadParallel() {
+        if (!InventoryFileHandler.loadParallel(target, textPath)) {
+            throw new IllegalStateException("Parallel load failed for " + textPath);
+        }
+        return target;
+    }
+
+    @Benchmark
+    public Inventory loadBinary() {
+        if (!InventoryFileHandler.load(target, binPath)) {
+            throw new IllegalStateException("Binary load failed for " + binPath);
+        }
+        return target;
+    }
+
+    // to journal-records pr. kald
+    @Benchmark
+    public String journalAddRemove() {
+        journalled.addItem("Journal Potion", ItemType.CONSUMABLE, Rarity.COMMON, 0.1,
+                null, null, null, null, "HEAL", 1);
+        return journalled.removeItemByName("Journal Potion");
+    }
+
+    @Benchmark
+    public InventoryService repositoryGetCold() {
+        InventoryService loaded = repository.get(PLAYERS[nextPlayer++ % PLAYERS.length]);
+        if (loaded == null) {
+            throw new IllegalStateException("Repository load failed");
+        }
+        return loaded;
+    }
+
+    private static File tempFile(String suffix) throws IOException {
+        File file = File.createTempFile("inventory-bench", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,227 @@
+package bench;
+
+import domain.Consumable;
+import domain.Inventory;
+import domain.Item;
+import domain.TradeOffer;
+import domain.TradeResult;
+import domain.Weapon;
+import domain.enums.Rarity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Baseline-målinger (JMH) af de varme stier i Inventory, for hver inventory-størrelse.
+// Kør før og efter performance-ændringer og sammenlign fx: java -jar target/benchmarks.jar InventoryBenchmark
+// Færre størrelser: ... InventoryBenchmark -p size=32,1024
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InventoryBenchmark {
+
+    // Et inventory med size tilfældige items, som opslag og ændringer køres mod
+    @State(Scope.Thread)
+    public static class Filled {
+        @Param({"32", "1024", "32768", "1000000"})
+        public int size;
+
+        Inventory inventory;
+        List<Item> slots;
+        Consumable stack;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            inventory = BenchData.randomInventory(size, 1);
+            slots = inventory.getItems();
+            stack = firstConsumable(inventory);
+            random = new Random(2);
+        }
+    }
+
+    // size unikke items og et tomt inventory, der ryddes før hver kørsel (så items ikke er "ejet")
+    @State(Scope.Thread)
+    public static class Empty {
+        @Param({"32", "1024", "32768", "1000000"})
+        public int size;
+
+        List<Item> items;
+        Inventory target;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            items = BenchData.randomItems(size, new Random(1));
+        }
+
+        @Setup(Level.Invocation)
+        public void fresh() {
+            if (target != null) {
+                target.clearItems();
+            }
+            target = BenchData.emptyInventory(size + 1);
+        }
+    }
+
+    // To inventories, der bytter ét våben hver vej (og tilbage igen ved næste kald)
+    @State(Scope.Thread)
+    public static class Trade {
+        @Param({"32", "1024", "32768", "1000000"})
+        public int size;
+
+        Inventory first;
+        Inventory second;
+        Item[] swap;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            first = BenchData.randomInventory(size, 1);
+            second = BenchData.randomInventory(size, 5);
+            swap = new Item[] {middleWeapon(first), middleWeapon(second)};
+        }
+    }
+
+    // Sortering: items blandes før hver kørsel (identity-hash er ingen af de fire rækkefølger),
+    // så der altid er noget at sortere
+    @State(Scope.Thread)
+    public static class Sorting {
+        @Param({"32", "1024", "32768", "1000000"})
+        public int size;
+
+        Inventory inventory;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            inventory = BenchData.randomInventory(size, 1);
+        }
+
+        @Setup(Level.Invocation)
+        public void shuffle() {
+            inventory.sortBy(Comparator.comparingInt(System::identityHashCode));
+        }
+    }
+
+    // --- tilføj (hele inventory fyldes pr. kald: del med size for tid pr. item) ---
+
+    @Benchmark
+    public Inventory addItemFill(Empty state) {
+        for (Item item : state.items) {
+            state.target.addItem(item);
+        }
+        return state.target;
+    }
+
+    // samme items som én batch (vægt/slots tjekkes én gang)
+    @Benchmark
+    public Inventory addItemsBatchFill(Empty state) {
+        if (!state.target.addItems(state.items).isApplied()) {
+            throw new IllegalStateException("Batch was rejected");
+        }
+        return state.target;
+    }
+
+    // samme consumable-navn lægges oven i en eksisterende stack
+    @Benchmark
+    public boolean addItemStacking(Filled state) {
+        Consumable stack = state.stack;
+        return state.inventory.addItem(new Consumable(stack.getName(), stack.getRarity(), stack.getWeight(), 1));
+    }
+
+    // --- opslag ---
+
+    @Benchmark
+    public double getTotalWeight(Filled state) {
+        return state.inventory.getTotalWeight();
+    }
+
+    @Benchmark
+    public Item findItemByName(Filled state) {
+        return state.inventory.findItemByName(state.slots.get(state.random.nextInt(state.slots.size())).getName());
+    }
+
+    // snapshot efter én ændring: O(log n) i ændringen + O(1) i selve snapshot (ingen kopi)
+    @Benchmark
+    public Object snapshotAfterChange(Filled state) {
+        state.stack.setStackSize(state.stack.getStackSize() % 1000 + 1);
+        return state.inventory.snapshot();
+    }
+
+    @Benchmark
+    public TradeResult trade1for1(Trade state) {
+        Item[] swap = state.swap;
+        TradeResult result = Inventory.trade(state.first, new TradeOffer().item(swap[0]),
+                state.second, new TradeOffer().item(swap[1]));
+        if (!result.isCompleted()) {
+            throw new IllegalStateException("Trade failed: " + result);
+        }
+        Item given = swap[0];
+        swap[0] = swap[1];
+        swap[1] = given;
+        return result;
+    }
+
+    // --- sortering ---
+
+    @Benchmark
+    public Inventory sortByName(Sorting state) {
+        state.inventory.sortByName();
+        return state.inventory;
+    }
+
+    @Benchmark
+    public Inventory sortByWeight(Sorting state) {
+        state.inventory.sortByWeight();
+        return state.inventory;
+    }
+
+    @Benchmark
+    public Inventory sortByType(Sorting state) {
+        state.inventory.sortByType();
+        return state.inventory;
+    }
+
+    @Benchmark
+    public Inventory sortByRarity(Sorting state) {
+        state.inventory.sortByRarity();
+        return state.inventory;
+    }
+
+    // --- hjælpere ---
+
+    // Et våben fra midten af inventory (våben stackes aldrig, så det flytter som det er)
+    private static Item middleWeapon(Inventory inventory) {
+        List<Item> slots = inventory.getItems();
+        for (int i = slots.size() / 2; i < slots.size(); i++) {
+            if (slots.get(i) instanceof Weapon) {
+                return slots.get(i);
+            }
+        }
+        throw new IllegalStateException("No weapon in the second half of the inventory");
+    }
+
+    private static Consumable firstConsumable(Inventory inventory) {
+        for (Item item : inventory.getItems()) {
+            if (item instanceof Consumable c) {
+                return c;
+            }
+        }
+        Consumable c = new Consumable("Potion", Rarity.COMMON, 0.1, 1);
+        inventory.addItem(c);
+        return c;
+    }
+}
@@ -0,0 +1,97 @@
+package bench;
+
+import domain.Inventory;
+import domain.Item;
+import domain.Player;
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InventoryService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Filtre og søgning i InventoryService og InventoryQuery (JMH), for hver inventory-størrelse.
+// Kør fx: java -jar target/benchmarks.jar ServiceBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ServiceBenchmark {
+
+    @Param({"32", "1024", "32768", "1000000"})
+    public int size;
+
+    private InventoryService service;
+    private Inventory rows;
+    private Inventory columnar;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Player player = new Player("Bench");
+        player.setInventory(BenchData.randomInventory(size, 3));
+        service = new InventoryService(player);
+        rows = player.getInventory();
+
+        columnar = BenchData.randomInventory(size, 3);
+        columnar.enableColumnarStorage();
+
+        // én enhed fra en stack der ikke løber tør under målingen
+        service.addItem("Bench Stack Potion", ItemType.CONSUMABLE, Rarity.COMMON, 0.001,
+                null, null, null, null, "HEAL", 1_000_000_000);
+    }
+
+    @Benchmark
+    public List<Item> filterByType() {
+        return service.filterByType(ItemType.WEAPON);
+    }
+
+    @Benchmark
+    public List<Item> filterByRarity() {
+        return service.filterByRarity(Rarity.EPIC);
+    }
+
+    @Benchmark
+    public List<Item> filterByWeight() {
+        return service.filterByWeight(2, 4);
+    }
+
+    @Benchmark
+    public List<Item> searchByNameContains() {
+        return service.searchByNameContains("on 12");
+    }
+
+    @Benchmark
+    public List<Item> searchCombined() {
+        return service.search("on", ItemType.WEAPON, Rarity.RARE, 2.0, 10.0);
+    }
+
+    // brede betingelser: indekset rammer det meste af inventory
+    @Benchmark
+    public List<Item> queryBroadIndex() {
+        return rows.query().minRarity(Rarity.UNCOMMON).weightBetween(0, 15).list();
+    }
+
+    @Benchmark
+    public List<Item> queryBroadColumnar() {
+        return columnar.query().minRarity(Rarity.UNCOMMON).weightBetween(0, 15).list();
+    }
+
+    @Benchmark
+    public String useConsumable() {
+        return service.useConsumable("Bench Stack Potion");
+    }
+}
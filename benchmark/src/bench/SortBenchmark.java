@@ -0,0 +1,100 @@
+package bench;
+
+import domain.Item;
+import domain.ItemSorter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Sammenligner counting sort (ItemSorter) med de gamle sorteringer i Inventory:
+// insertion sort for rarity og Comparator-sort for type.
+// Kør fx: java -cp out bench.SortBenchmark 10000 100000 1000000
+public class SortBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 9;
+
+    // insertion sort er O(n²) – over denne størrelse tager den minutter, så den springes over
+    private static final int INSERTION_SORT_LIMIT = 100_000;
+
+    public static void main(String[] args) {
+        int[] sizes = (args.length > 0) ? BenchData.parseSizes(args) : new int[] {10_000, 100_000, 1_000_000};
+
+        System.out.println("size;sort;median ms");
+        for (int n : sizes) {
+            List<Item> items = BenchData.randomItems(n, new Random(42));
+
+            if (n <= INSERTION_SORT_LIMIT) {
+                report(n, "rarity insertion sort (old)", items, SortBenchmark::insertionSortByRarity);
+            } else {
+                System.out.println(n + ";rarity insertion sort (old);skipped (O(n^2))");
+            }
+            report(n, "rarity counting sort", items, ItemSorter::byRarity);
+
+            report(n, "type comparator sort (old)", items, list -> list.sort(Comparator.comparing(Item::getType)));
+            report(n, "type counting sort", items, ItemSorter::byType);
+
+            // stabilitet: counting sort skal give samme rækkefølge som de gamle (stabile) sorteringer
+            checkSame(items, SortBenchmark::insertionSortByRarity, ItemSorter::byRarity, n <= INSERTION_SORT_LIMIT);
+            checkSame(items, list -> list.sort(Comparator.comparing(Item::getType)), ItemSorter::byType, true);
+        }
+    }
+
+    interface Sort {
+        void sort(List<Item> items);
+    }
+
+    // Måler median-tiden over flere kørsler; hver kørsel sorterer en frisk (usorteret) kopi
+    private static void report(int n, String name, List<Item> items, Sort sort) {
+        for (int i = 0; i < WARMUP; i++) {
+            sort.sort(new ArrayList<>(items));
+        }
+
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            List<Item> copy = new ArrayList<>(items);
+            long start = System.nanoTime();
+            sort.sort(copy);
+            times[i] = System.nanoTime() - start;
+        }
+        java.util.Arrays.sort(times);
+
+        System.out.println(String.format(Locale.ROOT, "%d;%s;%.3f", n, name, times[RUNS / 2] / 1e6));
+    }
+
+    private static void checkSame(List<Item> items, Sort expected, Sort actual, boolean enabled) {
+        if (!enabled) return;
+
+        List<Item> a = new ArrayList<>(items);
+        List<Item> b = new ArrayList<>(items);
+        expected.sort(a);
+        actual.sort(b);
+
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                throw new IllegalStateException("Sort results differ at index " + i);
+            }
+        }
+    }
+
+    // Den oprindelige Inventory.sortByRarity (insertion sort), som baseline
+    static void insertionSortByRarity(List<Item> slots) {
+        int n = slots.size();
+
+        for (int i = 1; i < n; i++) {
+            Item current = slots.get(i);
+            int currentRank = current.getRarity().ordinal();
+            int j = i - 1;
+
+            while (j >= 0 && slots.get(j).getRarity().ordinal() > currentRank) {
+                slots.set(j + 1, slots.get(j));
+                j--;
+            }
+
+            slots.set(j + 1, current);
+        }
+    }
+}
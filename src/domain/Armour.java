@@ -30,7 +30,7 @@ public class Armour extends Item {
         if (defence < 0) {
             throw new NegativeValues("Defence cannot be negative.");
         }
-        this.defence = defence;
+        change(false, () -> this.defence = defence);
     }
 
     public ArmourSlot getSlot() {
@@ -38,7 +38,12 @@ public class Armour extends Item {
     }
 
     public void setSlot(ArmourSlot slot) {
-        this.slot = slot;
+        change(false, () -> this.slot = slot);
+    }
+
+    @Override
+    Armour copy() {
+        return new Armour(getName(), getRarity(), getWeight(), defence, slot);
     }
 
     @Override
@@ -0,0 +1,51 @@
+package domain;
+
+import domain.enums.AddOutcome;
+
+import java.util.Collections;
+import java.util.List;
+
+// Resultat af Inventory.addItems: om batchen blev lagt ind, og udfaldet for hvert item
+// (samme rækkefølge som input). Hvis batchen ikke blev lagt ind, viser ADDED/STACKED
+// hvad der ville være sket, og mindst ét item har et fejl-udfald.
+public class BatchAddResult {
+
+    private final boolean applied;
+    private final List<AddOutcome> outcomes;
+    private final List<Item> holders;
+
+    BatchAddResult(boolean applied, List<AddOutcome> outcomes, List<Item> holders) {
+        this.applied = applied;
+        this.outcomes = Collections.unmodifiableList(outcomes);
+        this.holders = Collections.unmodifiableList(holders);
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public List<AddOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    // Det item i inventory som hvert input endte i (samme rækkefølge som input):
+    // item selv ved ADDED, stacken det blev lagt oven på ved STACKED, null ved fejl-udfald.
+    // Fx til at journalføre præcis det der blev ændret.
+    public List<Item> getHolders() {
+        return holders;
+    }
+
+    // Antal items med et bestemt udfald (fx hvor mange der ikke kunne være der)
+    public int count(AddOutcome outcome) {
+        int count = 0;
+        for (AddOutcome o : outcomes) {
+            if (o == outcome) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchAddResult{applied=" + applied + ", outcomes=" + outcomes + "}";
+    }
+}
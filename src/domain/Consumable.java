@@ -23,7 +23,7 @@ public class Consumable extends Item {
     }
 
     public void setEffectType(String effectType) {
-        this.effectType = effectType;
+        change(false, () -> this.effectType = effectType);
     }
 
     public int getStackSize() { // nuværende stack
@@ -32,11 +32,36 @@ public class Consumable extends Item {
 
     // Beskytter domain mod ugyldige værdier.
     // Fejlen håndteres videre oppe i service-laget.
+    // Læs-og-sæt (getStackSize() - 1) er ikke atomisk – bruger flere tråde af samme stack,
+    // så brug Inventory.consume/restock.
     public void setStackSize(int stackSize) {
+        checkStackSize(stackSize);
+        change(false, () -> this.stackSize = stackSize);
+    }
+
+    // Kun til Inventory selv (stacking under dens egen lås), som selv opdaterer vægten
+    void setStackSizeDirect(int stackSize) {
+        checkStackSize(stackSize);
+        this.stackSize = stackSize;
+    }
+
+    private static void checkStackSize(int stackSize) {
         if (stackSize < 1) {
             throw new NegativeValues("Stack size must be at least 1.");
         }
-        this.stackSize = stackSize;
+    }
+
+    @Override
+    Consumable copy() {
+        Consumable copy = new Consumable(getName(), getRarity(), getWeight(), stackSize);
+        copy.effectType = effectType;
+        return copy;
+    }
+
+    // En stack vejer weight pr. enhed * stackSize
+    @Override
+    public double getStackWeight() {
+        return getWeight() * stackSize;
     }
 
     @Override
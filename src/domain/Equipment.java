@@ -14,6 +14,13 @@ public class Equipment {
     private Armour legs;
     private Armour feet;
 
+    // tælles op ved hver ændring (som Inventory.getVersion), læses fx af autosave
+    private volatile long version = 0;
+
+    public long getVersion() {
+        return version;
+    }
+
     // Forsøger at equippe et våben i korrekt hånd
     public boolean equipWeapon(Weapon w) {
 
@@ -23,6 +30,7 @@ public class Equipment {
         if (handType == HandType.TWO_HAND) {
             mainHand = w;
             offHand = null;
+            version++;
             return true;
         }
 
@@ -30,10 +38,12 @@ public class Equipment {
         if (handType == HandType.ONE_HAND) {
             if (mainHand == null) {
                 mainHand = w;
+                version++;
                 return true;
             }
             if (offHand == null) {
                 offHand = w;
+                version++;
                 return true;
             }
             return false;
@@ -43,6 +53,7 @@ public class Equipment {
         if (handType == HandType.OFF_HAND) {
             if (offHand == null) {
                 offHand = w;
+                version++;
                 return true;
             }
             return false;
@@ -57,10 +68,10 @@ public class Equipment {
         ArmourSlot slot = a.getSlot();
 
         switch (slot) {
-            case HEAD -> { head = a; return true; }
-            case CHEST -> { chest = a; return true; }
-            case LEGS -> { legs = a; return true; }
-            case FEET -> { feet = a; return true; }
+            case HEAD -> { head = a; version++; return true; }
+            case CHEST -> { chest = a; version++; return true; }
+            case LEGS -> { legs = a; version++; return true; }
+            case FEET -> { feet = a; version++; return true; }
             default -> { return false; }
         }
     }
@@ -77,6 +88,7 @@ public class Equipment {
             case "legs" -> { removed = legs; legs = null; }
             case "feet" -> { removed = feet; feet = null; }
         }
+        if (removed != null) version++;
         return removed; // null hvis slot ukendt eller tomt
     }
 
@@ -84,6 +96,7 @@ public class Equipment {
     // Vi sætter direkte tilbage i samme slot, uden at køre normal equip-regler.
     public void restoreToSlot(String slot, Item item) {
         if (slot == null || item == null) return;
+        version++;
 
         switch (slot.toLowerCase()) {
             case "mainhand" -> {
@@ -123,6 +136,19 @@ public class Equipment {
                 feet == null;
     }
 
+    // Kopi med kopierede items i de samme slots (fx til save uden for service-låsen)
+    public Equipment copy() {
+        Equipment copy = new Equipment();
+        copy.mainHand = (mainHand != null) ? mainHand.copy() : null;
+        copy.offHand = (offHand != null) ? offHand.copy() : null;
+        copy.head = (head != null) ? head.copy() : null;
+        copy.chest = (chest != null) ? chest.copy() : null;
+        copy.legs = (legs != null) ? legs.copy() : null;
+        copy.feet = (feet != null) ? feet.copy() : null;
+        copy.version = version;
+        return copy;
+    }
+
     // --- getters (bruges af UI til at vise equipment i tabelformat) ---
     public Weapon getMainHand() { return mainHand; }
     public Weapon getOffHand() { return offHand; }
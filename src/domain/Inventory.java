@@ -1,13 +1,26 @@
 package domain;
 
+import domain.enums.AddOutcome;
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+import domain.enums.TradeOutcome;
 import exceptions.ItemNotFound;
 import exceptions.MaxWeightReached;
 import exceptions.NegativeValues;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 // Styrer spillerens inventory: vægtgrænser, slots, items, stacking og sortering.
 public class Inventory {
@@ -20,6 +33,51 @@ public class Inventory {
     // selve listen af items (kun Inventory må ændre denne direkte)
     private final ArrayList<Item> slots = new ArrayList<>();
 
+    // løbende total af vægten i slots (se getTotalWeight)
+    private double totalWeight = 0;
+
+    // indeks ved siden af slots (navn, navne-trigrams, type, rarity, vægt), så opslag, stacking
+    // og filtre ikke skal loope hele listen
+    private InventoryIndex index = new InventoryIndex();
+
+    // valgfrit kolonne-lager til store inventories (null = slået fra, se enableColumnarStorage).
+    // Når det er slået til, erstatter det indeksets type/rarity/vægt-buckets.
+    private ItemColumns columns;
+
+    // næste slot-nummer til nye items (holder indeksets rækkefølge = slot-rækkefølge)
+    private long nextSlotSeq = 0;
+
+    // tælles op ved hver ændring (items, felter på items, settings, rækkefølge), så fx autosave
+    // kan se om der er noget nyt at gemme. volatile: må læses fra en anden tråd uden lås.
+    private volatile long version = 0;
+
+    // lås til concurrent-mode (null = slået fra, se enableConcurrentAccess)
+    private StampedLock lock;
+
+    // fast, unik rækkefølge når flere inventories låses på én gang (se trade)
+    private static final AtomicLong NEXT_LOCK_ORDER = new AtomicLong();
+    private final long lockOrder = NEXT_LOCK_ORDER.getAndIncrement();
+
+    // --- snapshot-tilstand (se snapshot) ---
+    // frosne kopier af slots som ved seneste snapshot, som persistent liste: en ny version deler
+    // alt uændret med de gamle, så et snapshot ikke skal kopiere hele listen
+    private PersistentItemList frozen = PersistentItemList.EMPTY;
+
+    // ændringer siden seneste snapshot: tilføjede items / fjernede rækker i rækkefølge, og items
+    // hvor et felt er ændret. Indhentes først ved næste snapshot.
+    private final ArrayList<Pending> pending = new ArrayList<>();
+    private final Set<Item> changedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // true = frozen bygges helt forfra ved næste snapshot (efter sortering/load, eller når der
+    // er så mange ændringer at det er billigere). Så længe den er sat, logges intet.
+    private boolean frozenStale = false;
+
+    // seneste snapshot – genbruges så længe version er uændret
+    private volatile InventorySnapshot published;
+
+    // én strukturændring i pending: item != null = tilføjet til sidst, ellers fjernet fra row
+    private record Pending(Item item, int row) { }
+
     public Inventory() { }
 
     public Inventory(double maxWeight, int maxSlots, int unlockedSlots) {
@@ -31,7 +89,20 @@ public class Inventory {
     // --- settings / metadata ---
 
     public double getMaxWeight() {
-        return maxWeight;
+        if (lock == null) {
+            return maxWeight;
+        }
+        long stamp = lock.tryOptimisticRead();
+        double value = maxWeight;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = maxWeight;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
     }
 
     public void setMaxWeight(double maxWeight) {
@@ -39,7 +110,13 @@ public class Inventory {
         if (maxWeight < 0) {
             throw new NegativeValues("Max weight cannot be negative.");
         }
-        this.maxWeight = maxWeight;
+        long stamp = lockWrite();
+        try {
+            this.maxWeight = maxWeight;
+            changed();
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     public int getMaxSlots() {
@@ -47,7 +124,13 @@ public class Inventory {
     }
 
     public void setMaxSlots(int maxSlots) {
-        this.maxSlots = maxSlots;
+        long stamp = lockWrite();
+        try {
+            this.maxSlots = maxSlots;
+            changed();
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     public int getUnlockedSlots() {
@@ -55,20 +138,178 @@ public class Inventory {
     }
 
     public void setUnlockedSlots(int unlockedSlots) {
-        this.unlockedSlots = unlockedSlots;
+        long stamp = lockWrite();
+        try {
+            this.unlockedSlots = unlockedSlots;
+            changed();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // --- concurrent-mode ---
+    // Slår låsning til, så flere tråde kan bruge samme inventory (fx UI der tegner eller en save,
+    // mens spil-tråden tilføjer items). Skal kaldes før inventory deles mellem tråde.
+    //   - ændringer (add/remove/sortering/settings og felter på items) tager skrive-låsen
+    //   - getTotalWeight, getMaxWeight, size og isEmpty læses optimistisk uden at låse
+    //   - opslag og filtre i indekset tager den delte læse-lås, så læsere ikke blokerer
+    //     hinanden – kun skrivere. (Indekset er HashMap/TreeSet: at læse dem midt i en ændring
+    //     og validere bagefter er ikke sikkert, de kan kaste eller gå i ring undervejs.)
+    //   - getItems() giver en kopi i stedet for en levende visning, og query() udføres under
+    //     læse-låsen. sortedView() er stadig levende og skal læses fra den skrivende tråd.
+    public void enableConcurrentAccess() {
+        if (lock == null) {
+            lock = new StampedLock();
+        }
+    }
+
+    public boolean isConcurrentAccess() {
+        return lock != null;
+    }
+
+    // Låse-hjælpere: gør ingenting når concurrent-mode er slået fra (stamp = 0)
+    private long lockWrite() {
+        return (lock != null) ? lock.writeLock() : 0L;
+    }
+
+    private void unlockWrite(long stamp) {
+        if (lock != null) lock.unlockWrite(stamp);
+    }
+
+    private long lockRead() {
+        return (lock != null) ? lock.readLock() : 0L;
+    }
+
+    private void unlockRead(long stamp) {
+        if (lock != null) lock.unlockRead(stamp);
+    }
+
+    // --- version / snapshot ---
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Kun én tråd ændrer inventory ad gangen (service eller skrive-låsen), så ++ på volatile er nok
+    private void changed() {
+        version++;
+    }
+
+    // Uforanderligt billede af hele tilstanden (settings + frosne kopier af items) på ét tidspunkt,
+    // som kan gemmes eller vises fra en anden tråd, mens inventory selv ændres videre.
+    // Er intet ændret siden sidst, fås samme snapshot igen uden lås. Ellers indhentes kun
+    // ændringerne siden sidste snapshot (O(log n) pr. ændring), og resten deles med det forrige.
+    public InventorySnapshot snapshot() {
+        InventorySnapshot latest = published;
+        if (latest != null && latest.getVersion() == version) {
+            return latest;
+        }
+        long stamp = lockRead();
+        try {
+            // to snapshots på én gang (fx UI og autosave) må ikke begge indhente ændringerne
+            synchronized (pending) {
+                latest = published;
+                if (latest == null || latest.getVersion() != version) {
+                    catchUpFrozen();
+                    latest = new InventorySnapshot(version, maxWeight, maxSlots, unlockedSlots, totalWeight, frozen);
+                    published = latest;
+                }
+            }
+        } finally {
+            unlockRead(stamp);
+        }
+        return latest;
+    }
+
+    // Bringer frozen ajour med slots
+    private void catchUpFrozen() {
+        if (frozenStale) {
+            List<Item> copies = new ArrayList<>(slots.size());
+            for (Item item : slots) {
+                copies.add(item.frozenCopy());
+            }
+            frozen = PersistentItemList.of(copies);
+        } else {
+            for (Pending op : pending) {
+                frozen = (op.item() != null) ? frozen.plus(op.item().frozenCopy()) : frozen.without(op.row());
+            }
+            for (Item item : changedItems) {
+                int row = rowOf(item); // -1 hvis det er fjernet igen
+                if (row >= 0) frozen = frozen.with(row, item.frozenCopy());
+            }
+        }
+        pending.clear();
+        changedItems.clear();
+        frozenStale = false;
+    }
+
+    // Logning til næste snapshot. Bliver loggen stor i forhold til inventory, er det billigere
+    // at bygge forfra – så logges der ikke mere indtil da.
+    private void logAppended(Item item) {
+        if (!frozenStale) {
+            pending.add(new Pending(item, -1));
+            limitLog();
+        }
+    }
+
+    private void logRemoved(int row) {
+        if (!frozenStale) {
+            pending.add(new Pending(null, row));
+            limitLog();
+        }
+    }
+
+    private void logChanged(Item item) {
+        if (!frozenStale && changedItems.add(item)) {
+            limitLog();
+        }
+    }
+
+    private void limitLog() {
+        if (pending.size() + changedItems.size() > 64 + slots.size() / 8) {
+            markFrozenStale();
+        }
+    }
+
+    private void markFrozenStale() {
+        frozenStale = true;
+        pending.clear();
+        changedItems.clear();
     }
 
     // Total vægt i inventory.
     // VIGTIGT: Consumables tæller vægt pr. enhed * stackSize (ellers kan man omgå maxWeight via stacking).
+    // Totalen holdes løbende opdateret ved hver ændring, så vægt-tjek ikke skal loope alle slots.
     public double getTotalWeight() {
+        if (lock == null) {
+            return totalWeight;
+        }
+        // optimistisk: læs uden lås og tjek bagefter at ingen skrev imens
+        long stamp = lock.tryOptimisticRead();
+        double weight = totalWeight;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                weight = totalWeight;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return weight;
+    }
+
+    // Fuld genberegning af vægten.
+    // Bruges kun til at kontrollere den løbende total, når programmet køres med assertions (-ea).
+    // Med kolonne-lager scannes vægt-arrayet, så kolonnerne samtidig bliver tjekket.
+    double recomputeTotalWeight() {
+        if (columns != null) {
+            return columns.totalWeight();
+        }
+
         double sum = 0;
 
         for (Item item : slots) {
-            if (item instanceof Consumable c) {
-                sum += item.getWeight() * c.getStackSize();
-            } else {
-                sum += item.getWeight();
-            }
+            sum += item.getStackWeight();
         }
 
         return sum;
@@ -76,7 +317,198 @@ public class Inventory {
 
     // bruges ved load fra fil – vi starter med tomt inventory
     public void clearItems() {
+        long stamp = lockWrite();
+        try {
+            clearSlots();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void clearSlots() {
+        for (Item item : slots) {
+            item.setOwner(null);
+        }
+        slots.clear();
+        index.clear();
+        if (columns != null) columns.rebuild(slots);
+        frozen = PersistentItemList.EMPTY;
+        pending.clear();
+        changedItems.clear();
+        frozenStale = false;
+        totalWeight = 0;
+        nextSlotSeq = 0;
+        changed();
+    }
+
+    // Overtager hele indholdet fra source: settings, items, indeks og løbende vægt (fx efter en
+    // load der er bygget op ved siden af). Intet bygges om – kun items' ejer skiftes. source er
+    // tom bagefter. Kolonne-lager følger dette inventory's egen indstilling.
+    // Låsene tages i lockOrder-rækkefølge ligesom i trade.
+    public void replaceWith(Inventory source) {
+        if (source == null || source == this) {
+            return;
+        }
+
+        Inventory lower = (lockOrder < source.lockOrder) ? this : source;
+        Inventory upper = (lower == this) ? source : this;
+
+        long lowerStamp = lower.lockWrite();
+        try {
+            long upperStamp = upper.lockWrite();
+            try {
+                takeOver(source);
+            } finally {
+                upper.unlockWrite(upperStamp);
+            }
+        } finally {
+            lower.unlockWrite(lowerStamp);
+        }
+    }
+
+    private void takeOver(Inventory source) {
+        for (Item item : slots) {
+            item.setOwner(null);
+        }
         slots.clear();
+        slots.addAll(source.slots);
+        for (Item item : slots) {
+            item.setOwner(this);
+        }
+
+        index = source.index;
+        index.useFieldBuckets(columns == null, slots); // source kan have haft den anden indstilling
+        markFrozenStale(); // alle items er nye her
+        totalWeight = source.totalWeight;
+        nextSlotSeq = source.nextSlotSeq;
+        maxWeight = source.maxWeight;
+        maxSlots = source.maxSlots;
+        unlockedSlots = source.unlockedSlots;
+        if (columns != null && source.columns != null) {
+            columns = source.columns; // allerede bygget til de samme slots
+            source.columns = new ItemColumns();
+        } else if (columns != null) {
+            columns.rebuild(slots);
+        }
+        changed();
+
+        source.slots.clear();
+        source.index = new InventoryIndex();
+        source.index.useFieldBuckets(source.columns == null, source.slots);
+        source.frozen = PersistentItemList.EMPTY;
+        source.pending.clear();
+        source.changedItems.clear();
+        source.frozenStale = false;
+        if (source.columns != null) source.columns.rebuild(source.slots);
+        source.totalWeight = 0;
+        source.nextSlotSeq = 0;
+        source.changed();
+
+        assert weightIsConsistent() : "Running total weight out of sync";
+    }
+
+    // Kaldes af Item når et felt ændres på et item i dette inventory (se Item.change), fx
+    // navn, vægt eller stackSize når service bruger en consumable. Alt sker i ét skridt under
+    // skrive-låsen. false hvis item ikke (længere) ligger her.
+    boolean changeItem(Item item, boolean indexed, Runnable change) {
+        long stamp = lockWrite();
+        try {
+            if (item.getOwner() != this) {
+                return false;
+            }
+            applyChange(item, indexed, change);
+            return true;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // indexed = feltet indgår i indekset (navn, type, rarity, vægt): item tages ud før og ind igen efter.
+    // Ellers flyttes det kun i de sorterede visninger (deres Comparator kan bruge ethvert felt).
+    // Vægt, kolonner og version følger altid med. Kalderen holder låsen.
+    private void applyChange(Item item, boolean indexed, Runnable change) {
+        double before = item.getStackWeight();
+        if (indexed) index.remove(item); else index.removeFromViews(item);
+        change.run();
+        if (indexed) index.add(item); else index.addToViews(item);
+        if (columns != null) columns.set(rowOf(item), item);
+        logChanged(item);
+        changed();
+
+        double after = item.getStackWeight();
+        if (after != before) {
+            totalWeight += after - before;
+            assert weightIsConsistent() : "Running total weight out of sync";
+        }
+    }
+
+    // Stacking indefra (låsen er allerede taget), derfor ikke via Consumable.setStackSize
+    private void setStack(Consumable c, int stackSize) {
+        applyChange(c, false, () -> c.setStackSizeDirect(stackSize));
+    }
+
+    // --- kolonne-lager (bank/lager-størrelse) ---
+
+    // Slår kolonne-lageret til: vægt, type, rarity og damage/defence/stack
+    // gemmes i primitive arrays, og filtre på type, rarity og vægt (også i query) scanner dem.
+    // Indeksets buckets for de tre felter smides væk, så hvert item fylder mindre
+    // (en array-plads i stedet for tre træ-noder) og en ændring ikke skal flytte det i tre træer.
+    // Items selv findes stadig, da getItems() og resten af API'et udleverer dem – så det er en
+    // mindre besparelse pr. item, ikke en fuld structure-of-arrays (se ItemColumns).
+    // Prisen: filtrene scanner hele inventory (lineært, men uden at hoppe mellem objekter).
+    public void enableColumnarStorage() {
+        long stamp = lockWrite();
+        try {
+            if (columns == null) {
+                columns = new ItemColumns();
+                columns.rebuild(slots);
+                index.useFieldBuckets(false, slots);
+            }
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    public boolean isColumnarStorage() {
+        return columns != null;
+    }
+
+    // Slots er altid ordnet efter slotSeq, så et items position kan findes med binær søgning.
+    private int rowOf(Item item) {
+        if (item.getOwner() != this) {
+            return -1;
+        }
+        int row = Collections.binarySearch(slots, item, InventoryIndex.SLOT_ORDER);
+        return (row >= 0 && slots.get(row) == item) ? row : -1;
+    }
+
+    // Efter sortering er rækkefølgen ny: nummerér slots forfra og lad indekset følge med.
+    private void renumberSlots() {
+        nextSlotSeq = 0;
+        for (Item item : slots) {
+            item.setSlotSeq(nextSlotSeq++);
+        }
+        index.reorder(slots);
+        if (columns != null) columns.rebuild(slots);
+        markFrozenStale();
+        changed();
+    }
+
+    // Vægtgrænsen tjekkes med en lille tolerance: den løbende totalWeight og en frisk sum
+    // (fx efter load eller replay af en journal) kan afvige i sidste decimal, og et item der
+    // lige præcis passede skal også passe næste gang.
+    private boolean exceedsMaxWeight(double weight) {
+        return exceedsMaxWeight(weight, maxWeight);
+    }
+
+    // Samme tolerance for andre beholdere med en vægtgrænse (SharedStash)
+    static boolean exceedsMaxWeight(double weight, double maxWeight) {
+        return weight > maxWeight + 1e-9 * Math.max(1, maxWeight);
+    }
+
+    private boolean weightIsConsistent() {
+        // lille tolerance, da plus/minus af doubles giver afrundingsfejl over tid
+        return Math.abs(totalWeight - recomputeTotalWeight()) < 1e-6 * Math.max(1, maxWeight);
     }
 
     // --- core logik: add / remove / find ---
@@ -84,28 +516,43 @@ public class Inventory {
     // Forsøger at tilføje et item til inventory.
     // Domain er ansvarlig for at håndhæve vægt- og kapacitetsregler.
     // Ved overskridelse af maxWeight kastes en exception (fejlhåndtering via exceptions).
+    // false hvis der ikke er et ledigt slot, eller item allerede ligger i et inventory.
     public boolean addItem(Item item) {
+        long stamp = lockWrite();
+        try {
+            return addItemLocked(item);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private boolean addItemLocked(Item item) {
+
+        // et item kan kun ligge ét sted: allerede i dette (eller et andet) inventory -> afvis
+        // (samme regel som addItems, hvor det giver INVALID)
+        if (item == null || item.getOwner() != null) {
+            return false;
+        }
 
         // stacking for consumables med samme navn (lægger stackSize sammen)
         // MEN: vi skal stadig respektere maxWeight (stacking er ikke “gratis”).
         if (item instanceof Consumable cNew) {
 
-            // beregn hvad denne tilføjelse koster i vægt
-            double addedWeight = cNew.getWeight() * cNew.getStackSize();
-
-            // hvis vægtgrænse overskrides, må vi ikke stack
-            if (getTotalWeight() + addedWeight > maxWeight) {
-                // Max weight overskredet -> domain exception (ikke bare status)
-                throw new MaxWeightReached("Max weight exceeded.");
-            }
-
-            for (Item existing : slots) {
-                if (existing instanceof Consumable cOld &&
-                        cOld.getName().equalsIgnoreCase(cNew.getName())) {
+            // slå op i navne-indekset i stedet for at loope alle slots
+            Consumable cOld = index.findConsumableByName(cNew.getName());
+            if (cOld != null) {
+                // beregn hvad denne tilføjelse koster i vægt – stacken beholder sin egen vægt pr. stk.
+                double addedWeight = cNew.getStackSize() * cOld.getWeight();
 
-                    cOld.setStackSize(cOld.getStackSize() + cNew.getStackSize());
-                    return true; // ingen ekstra slot ved stacking
+                // hvis vægtgrænse overskrides, må vi ikke stack
+                if (exceedsMaxWeight(totalWeight + addedWeight)) {
+                    // Max weight overskredet -> domain exception (ikke bare status)
+                    throw new MaxWeightReached("Max weight exceeded.");
                 }
+
+                // setStack holder totalWeight, kolonner og version opdateret
+                setStack(cOld, cOld.getStackSize() + cNew.getStackSize());
+                return true; // ingen ekstra slot ved stacking
             }
         }
 
@@ -117,31 +564,502 @@ public class Inventory {
         }
 
         // vægt-tjek (for consumables: weight * stackSize)
-        double itemWeight = item.getWeight();
-        if (item instanceof Consumable c) {
-            itemWeight = item.getWeight() * c.getStackSize();
-        }
+        double itemWeight = item.getStackWeight();
 
-        if (getTotalWeight() + itemWeight > maxWeight) {
+        if (exceedsMaxWeight(totalWeight + itemWeight)) {
             // Max weight overskredet -> domain exception
             throw new MaxWeightReached("Max weight exceeded.");
         }
 
-        slots.add(item);
+        appendSlot(item);
+        assert weightIsConsistent() : "Running total weight out of sync";
+        return true;
+    }
+
+    // Tilføjer mange items på én gang (fx loot eller load).
+    // Vægt og slots regnes ud én gang for hele batchen, og consumables med samme navn
+    // stackes – både med inventory og inden for batchen. Alt-eller-intet: hvis ét item ikke
+    // kan være der, ændres intet. I stedet for exceptions får hvert item et udfald i resultatet.
+    public BatchAddResult addItems(Collection<? extends Item> items) {
+        long stamp = lockWrite();
+        try {
+            return addItemsLocked(items);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private BatchAddResult addItemsLocked(Collection<? extends Item> items) {
+        List<AddOutcome> outcomes = new ArrayList<>(items.size());
+        List<Item> holders = new ArrayList<>(items.size());
+
+        // --- FASE 1: planlæg (ingen ændringer endnu) ---
+        List<Item> newSlots = new ArrayList<>();
+        Map<Consumable, Integer> stackOnExisting = new IdentityHashMap<>();
+        Map<String, Consumable> newStacks = new HashMap<>();       // navn -> ny consumable i batchen
+        Map<Consumable, Integer> stackOnNew = new IdentityHashMap<>();
+        Set<Item> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        double weight = totalWeight;
+        boolean ok = true;
+
+        for (Item item : items) {
+            if (item == null || item.getOwner() != null || !seen.add(item)) {
+                outcomes.add(AddOutcome.INVALID);
+                holders.add(null);
+                ok = false;
+                continue;
+            }
+
+            // vægten tæller med uanset om item stackes eller får sit eget slot
+            // (afviste items tæller ikke med, så resten af batchen vurderes retfærdigt).
+            // Ved stacking beholder stacken sin egen vægt pr. stk., så vægten regnes med den.
+            Consumable stackOn = null;
+            boolean onExisting = false;
+            if (item instanceof Consumable c) {
+                stackOn = index.findConsumableByName(c.getName());
+                onExisting = stackOn != null;
+                if (!onExisting) {
+                    stackOn = newStacks.get(InventoryIndex.nameKey(c.getName()));
+                }
+            }
+            double itemWeight = (stackOn != null)
+                    ? ((Consumable) item).getStackSize() * stackOn.getWeight()
+                    : item.getStackWeight();
+            if (exceedsMaxWeight(weight + itemWeight)) {
+                outcomes.add(AddOutcome.TOO_HEAVY);
+                holders.add(null);
+                ok = false;
+                continue;
+            }
+
+            if (stackOn != null) {
+                (onExisting ? stackOnExisting : stackOnNew)
+                        .merge(stackOn, ((Consumable) item).getStackSize(), Integer::sum);
+                weight += itemWeight;
+                outcomes.add(AddOutcome.STACKED);
+                holders.add(stackOn);
+                continue;
+            }
+
+            if (slots.size() + newSlots.size() >= unlockedSlots) {
+                outcomes.add(AddOutcome.NO_SLOT);
+                holders.add(null);
+                ok = false;
+                continue;
+            }
+
+            weight += itemWeight;
+            newSlots.add(item);
+            outcomes.add(AddOutcome.ADDED);
+            holders.add(item);
+
+            // senere consumables med samme navn i batchen stackes oven på denne
+            if (item instanceof Consumable c) {
+                newStacks.put(InventoryIndex.nameKey(c.getName()), c);
+            }
+        }
+
+        if (!ok) {
+            return new BatchAddResult(false, outcomes, holders);
+        }
+
+        // --- FASE 2: læg det hele ind ---
+        stackOnNew.forEach((c, extra) -> c.setStackSize(c.getStackSize() + extra));
+        stackOnExisting.forEach((c, extra) -> setStack(c, c.getStackSize() + extra));
+        for (Item item : newSlots) {
+            appendSlot(item);
+        }
+
+        assert weightIsConsistent() : "Running total weight out of sync";
+        return new BatchAddResult(true, outcomes, holders);
+    }
+
+    // Hurtig gendannelse fra en betroet save (fx hvor filens checksum passer). Inventory skal være tomt.
+    // Items lægges direkte i slots i den givne rækkefølge – ingen stacking og ingen vægt-tjek pr. item.
+    // Vægt og slots valideres én gang for det hele. Alt-eller-intet: false hvis de ikke passer,
+    // eller hvis et item allerede ligger i et inventory (eller optræder to gange).
+    public boolean restoreItems(List<? extends Item> items) {
+        long stamp = lockWrite();
+        try {
+            return restoreItemsLocked(items);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private boolean restoreItemsLocked(List<? extends Item> items) {
+        if (!slots.isEmpty()) {
+            throw new IllegalStateException("restoreItems requires an empty inventory");
+        }
+        if (items.size() > unlockedSlots) {
+            return false;
+        }
+
+        double weight = 0;
+        for (Item item : items) {
+            if (item == null) return false;
+            weight += item.getStackWeight();
+        }
+        if (exceedsMaxWeight(weight)) {
+            return false;
+        }
+
+        slots.ensureCapacity(items.size());
+        for (Item item : items) {
+            if (item.getOwner() != null) {
+                clearSlots(); // rul tilbage – også items fra denne liste, der allerede er lagt ind
+                return false;
+            }
+            link(item);
+        }
+        markFrozenStale(); // én balanceret opbygning ved næste snapshot i stedet for n enkelte
+
+        assert weightIsConsistent() : "Running total weight out of sync";
         return true;
     }
 
+    // Lægger et item i næste slot og opdaterer vægt, indeks og evt. kolonner.
+    // Kalderen har allerede tjekket slots og vægt.
+    private void appendSlot(Item item) {
+        link(item);
+        logAppended(item);
+    }
+
+    // appendSlot uden at logge til næste snapshot (kalderen markerer selv frozen som forældet)
+    private void link(Item item) {
+        slots.add(item);
+        item.setOwner(this);
+        item.setSlotSeq(nextSlotSeq++);
+        index.add(item);
+        if (columns != null) columns.append(item);
+        totalWeight += item.getStackWeight();
+        changed();
+    }
+
     public boolean removeItem(Item item) {
-        return slots.remove(item);
+        long stamp = lockWrite();
+        try {
+            return removeItemLocked(item);
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
-    public Item findItemByName(String name) {
-        for (Item item : slots) {
-            if (item.getName().equalsIgnoreCase(name)) {
-                return item;
+    private boolean removeItemLocked(Item item) {
+        int row = rowOf(item);
+        if (row < 0) {
+            return false;
+        }
+
+        slots.remove(row);
+        if (columns != null) columns.remove(row);
+        logRemoved(row);
+
+        index.remove(item);
+        item.setOwner(null);
+
+        // tomt inventory -> nulstil, så afrundingsfejl ikke hober sig op
+        totalWeight = slots.isEmpty() ? 0 : totalWeight - item.getStackWeight();
+        changed();
+        assert weightIsConsistent() : "Running total weight out of sync";
+        return true;
+    }
+
+    // Lægger et item tilbage på plads index (fx når en flytning ud af inventory blev afvist),
+    // så spillerens rækkefølge ikke ændres. O(n): slots nummereres forfra ligesom efter en sortering.
+    // false hvis item har en ejer eller ikke kan være der (slots/vægt).
+    public boolean restoreItem(Item item, int index) {
+        long stamp = lockWrite();
+        try {
+            if (item == null || item.getOwner() != null || slots.size() >= unlockedSlots
+                    || exceedsMaxWeight(totalWeight + item.getStackWeight())) {
+                return false;
+            }
+            link(item);
+            slots.remove(slots.size() - 1);
+            slots.add(Math.max(0, Math.min(index, slots.size())), item);
+            renumberSlots();
+            assert weightIsConsistent() : "Running total weight out of sync";
+            return true;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // --- stacks ---
+
+    // Bruger amount enheder af en consumable-stack i ét skridt: stacken bliver mindre, eller
+    // fjernes når den sidste enhed er brugt. Tjek og ændring sker under samme lås, så tråde der
+    // bruger af samme stack hverken mister eller får ekstra enheder, og kun én af dem fjerner den.
+    // Antal tilbage (0 = fjernet), eller -1 hvis stacken er null, ikke ligger her eller har færre end amount.
+    public int consume(Consumable c, int amount) {
+        if (amount < 1) {
+            throw new NegativeValues("Amount must be at least 1.");
+        }
+        if (c == null) {
+            return -1;
+        }
+        long stamp = lockWrite();
+        try {
+            if (c.getOwner() != this || c.getStackSize() < amount) {
+                return -1;
+            }
+
+            int left = c.getStackSize() - amount;
+            if (left == 0) {
+                removeItemLocked(c);
+            } else {
+                setStack(c, left);
+            }
+            return left;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // Lægger amount enheder oven i en stack i ét skridt (samme vægt-regel som addItem).
+    // Den nye størrelse, eller -1 hvis stacken er null eller ikke ligger her.
+    public int restock(Consumable c, int amount) {
+        if (amount < 1) {
+            throw new NegativeValues("Amount must be at least 1.");
+        }
+        if (c == null) {
+            return -1;
+        }
+        long stamp = lockWrite();
+        try {
+            if (c.getOwner() != this) {
+                return -1;
+            }
+            if (exceedsMaxWeight(totalWeight + c.getWeight() * amount)) {
+                throw new MaxWeightReached("Max weight exceeded.");
+            }
+
+            int size = c.getStackSize() + amount;
+            setStack(c, size);
+            return size;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // --- handel mellem inventories ---
+
+    // Byttehandel i ét atomisk skridt: first giver fromFirst til second, og second giver
+    // fromSecond til first (et tomt bud = gave). Alt planlægges før noget ændres: ejerskab og
+    // stack-mængder, og om vægt og slots passer på begge sider når det udgående er væk
+    // (med samme stacking som addItems). Er der ét problem, ændres intet på nogen af siderne.
+    //
+    // I concurrent-mode tages begge skrive-låse, altid i lockOrder-rækkefølge, så to handler
+    // mellem de samme inventories (også i modsat retning) ikke kan vente på hinanden i ring.
+    public static TradeResult trade(Inventory first, TradeOffer fromFirst,
+                                    Inventory second, TradeOffer fromSecond) {
+        if (first == second) {
+            return new TradeResult(TradeOutcome.INVALID, first);
+        }
+
+        Inventory lower = (first.lockOrder < second.lockOrder) ? first : second;
+        Inventory upper = (lower == first) ? second : first;
+
+        long lowerStamp = lower.lockWrite();
+        try {
+            long upperStamp = upper.lockWrite();
+            try {
+                return tradeLocked(first, fromFirst, second, fromSecond);
+            } finally {
+                upper.unlockWrite(upperStamp);
+            }
+        } finally {
+            lower.unlockWrite(lowerStamp);
+        }
+    }
+
+    // Envejs-flytning fra ét inventory til et andet (fx fra en kiste eller mellem to spillere)
+    public static TradeResult transfer(Inventory from, Inventory to, TradeOffer offer) {
+        return trade(from, offer, to, new TradeOffer());
+    }
+
+    private static TradeResult tradeLocked(Inventory first, TradeOffer fromFirst,
+                                           Inventory second, TradeOffer fromSecond) {
+        // --- FASE 1: planlæg begge sider (ingen ændringer endnu) ---
+        Outgoing outFirst = first.planOutgoing(fromFirst);
+        if (outFirst == null) {
+            return new TradeResult(TradeOutcome.INVALID, first);
+        }
+        Outgoing outSecond = second.planOutgoing(fromSecond);
+        if (outSecond == null) {
+            return new TradeResult(TradeOutcome.INVALID, second);
+        }
+
+        Incoming inFirst = first.planIncoming(outFirst, outSecond.moving);
+        if (inFirst.problem != null) {
+            return new TradeResult(inFirst.problem, first);
+        }
+        Incoming inSecond = second.planIncoming(outSecond, outFirst.moving);
+        if (inSecond.problem != null) {
+            return new TradeResult(inSecond.problem, second);
+        }
+
+        // --- FASE 2: udfør. Begge sider giver før nogen modtager, så items der skifter
+        // inventory ikke længere har en ejer, når de lægges ind. ---
+        List<Integer> removedFirst = first.applyOutgoing(outFirst);
+        List<Integer> removedSecond = second.applyOutgoing(outSecond);
+        first.applyIncoming(inFirst);
+        second.applyIncoming(inSecond);
+
+        assert first.weightIsConsistent() && second.weightIsConsistent()
+                : "Running total weight out of sync";
+        return new TradeResult(first, changes(removedFirst, outFirst, inFirst),
+                changes(removedSecond, outSecond, inSecond));
+    }
+
+    // Én sides ændringer (se TradeResult.Changes). En stack kan både give og få i samme handel,
+    // så den står kun én gang.
+    private static TradeResult.Changes changes(List<Integer> removed, Outgoing out, Incoming in) {
+        Set<Consumable> stacked = Collections.newSetFromMap(new IdentityHashMap<>());
+        stacked.addAll(out.parts.keySet());
+        stacked.addAll(in.stackOnExisting.keySet());
+        return new TradeResult.Changes(removed, new ArrayList<>(stacked), new ArrayList<>(in.newSlots));
+    }
+
+    // Det der forlader et inventory i en handel
+    private static final class Outgoing {
+        final List<Item> whole = new ArrayList<>();                                // hele items/stacks
+        final Set<Item> wholeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Map<Consumable, Integer> parts = new IdentityHashMap<>();            // stack -> antal der tages
+        final List<Item> moving = new ArrayList<>();   // det modtageren får (hele items + afdelte stacks)
+        double weight;
+    }
+
+    // Det der lægges ind i et inventory i en handel (samme opdeling som i addItems)
+    private static final class Incoming {
+        final List<Item> newSlots = new ArrayList<>();
+        final Map<Consumable, Integer> stackOnExisting = new IdentityHashMap<>();
+        final Map<Consumable, Integer> stackOnNew = new IdentityHashMap<>();
+        TradeOutcome problem;   // null = det passer
+    }
+
+    // Tjekker et bud mod dette inventory. null hvis buddet er ugyldigt: et item ligger ikke her,
+    // optræder to gange, eller der tages flere enheder end stacken har.
+    private Outgoing planOutgoing(TradeOffer offer) {
+        Outgoing out = new Outgoing();
+        Set<Item> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Item item : offer.getItems()) {
+            if (item == null || item.getOwner() != this || !seen.add(item)) {
+                return null;
+            }
+            out.whole.add(item);
+            out.wholeSet.add(item);
+            out.moving.add(item);
+            out.weight += item.getStackWeight();
+        }
+
+        for (TradeOffer.Part part : offer.getParts()) {
+            Consumable c = part.consumable();
+            if (c == null || c.getOwner() != this || !seen.add(c) || part.amount() > c.getStackSize()) {
+                return null;
+            }
+
+            if (part.amount() == c.getStackSize()) {
+                // hele stacken: item'et flytter selv med
+                out.whole.add(c);
+                out.wholeSet.add(c);
+                out.moving.add(c);
+                out.weight += c.getStackWeight();
+            } else {
+                // resten bliver her – modtageren får en ny stack med samme data
+                Consumable split = c.copy();
+                split.setStackSizeDirect(part.amount());
+                out.parts.put(c, part.amount());
+                out.moving.add(split);
+                out.weight += split.getStackWeight();
+            }
+        }
+        return out;
+    }
+
+    // Passer items i dette inventory, når out allerede er væk? Stacking som i addItems, men en
+    // stack der selv forlader inventory, kan der ikke stackes oven på.
+    private Incoming planIncoming(Outgoing out, List<Item> items) {
+        Incoming in = new Incoming();
+        Map<String, Consumable> newStacks = new HashMap<>();   // navn -> ny consumable i handlen
+
+        double weight = totalWeight - out.weight;
+        int usedSlots = slots.size() - out.whole.size();
+
+        for (Item item : items) {
+            if (item instanceof Consumable c) {
+                // stacken beholder sin egen vægt pr. stk., så det er den vægten regnes med
+                Consumable existing = index.findConsumableByName(c.getName());
+                if (existing != null && !out.wholeSet.contains(existing)) {
+                    in.stackOnExisting.merge(existing, c.getStackSize(), Integer::sum);
+                    weight += c.getStackSize() * existing.getWeight();
+                    continue;
+                }
+
+                Consumable earlier = newStacks.get(InventoryIndex.nameKey(c.getName()));
+                if (earlier != null) {
+                    in.stackOnNew.merge(earlier, c.getStackSize(), Integer::sum);
+                    weight += c.getStackSize() * earlier.getWeight();
+                    continue;
+                }
+                newStacks.put(InventoryIndex.nameKey(c.getName()), c);
             }
+            weight += item.getStackWeight();
+
+            if (usedSlots + in.newSlots.size() >= unlockedSlots) {
+                in.problem = TradeOutcome.NO_SLOT;
+                return in;
+            }
+            in.newSlots.add(item);
+        }
+
+        if (exceedsMaxWeight(weight)) {
+            in.problem = TradeOutcome.TOO_HEAVY;
+        }
+        return in;
+    }
+
+    // Returnerer positionen hvert helt item havde, lige før det blev fjernet
+    private List<Integer> applyOutgoing(Outgoing out) {
+        List<Integer> removed = new ArrayList<>(out.whole.size());
+        for (Item item : out.whole) {
+            removed.add(rowOf(item));
+            removeItemLocked(item);
+        }
+        out.parts.forEach((c, amount) -> setStack(c, c.getStackSize() - amount));
+        return removed;
+    }
+
+    private void applyIncoming(Incoming in) {
+        // items i stackOnNew har ingen ejer endnu, så de kan ændres direkte
+        in.stackOnNew.forEach((c, extra) -> c.setStackSizeDirect(c.getStackSize() + extra));
+        in.stackOnExisting.forEach((c, extra) -> setStack(c, c.getStackSize() + extra));
+        for (Item item : in.newSlots) {
+            appendSlot(item);
+        }
+    }
+
+    // Case-insensitive opslag via navne-indekset (første match i slot-rækkefølge)
+    public Item findItemByName(String name) {
+        long stamp = lockRead();
+        try {
+            return index.findByName(name);
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    // Den consumable som en ny consumable med dette navn ville blive stacket på (null = ny stack)
+    Consumable findStack(String name) {
+        long stamp = lockRead();
+        try {
+            return index.findConsumableByName(name);
+        } finally {
+            unlockRead(stamp);
         }
-        return null;
     }
 
     // Finder et item ud fra navn.
@@ -155,46 +1073,221 @@ public class Inventory {
         return item;
     }
 
+    // --- filtre via indekset (tid afhænger af antal resultater, ikke inventory-størrelse) ---
+
+    // Alle items med præcis dette navn (case-insensitive), i slot-rækkefølge
+    public List<Item> findItemsByName(String name) {
+        long stamp = lockRead();
+        try {
+            return index.findAllByName(name);
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    // Case-insensitive "navn indeholder" via trigram-indekset
+    public List<Item> findItemsByNameContains(String text) {
+        long stamp = lockRead();
+        try {
+            return index.findByNameContains(text);
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    // Med kolonne-lager scannes kolonnerne i stedet for indeksets buckets (se enableColumnarStorage)
+
+    public List<Item> findItemsByType(ItemType type) {
+        long stamp = lockRead();
+        try {
+            if (columns != null) {
+                return (type == null) ? new ArrayList<>()
+                        : scanColumns(type, null, null, false, 0, 0);
+            }
+            return index.findByType(type);
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    public List<Item> findItemsByRarity(Rarity rarity) {
+        long stamp = lockRead();
+        try {
+            if (columns != null) {
+                return (rarity == null) ? new ArrayList<>()
+                        : scanColumns(null, rarity, rarity, false, 0, 0);
+            }
+            return index.findByRarity(rarity);
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    public List<Item> findItemsByWeight(double min, double max) {
+        long stamp = lockRead();
+        try {
+            if (columns != null) {
+                return scanColumns(null, null, null, true, min, max);
+            }
+            return index.findByWeight(min, max);
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    // Items i de rækker der opfylder betingelserne, i slot-rækkefølge. Kalderen holder låsen.
+    private List<Item> scanColumns(ItemType type, Rarity minRarity, Rarity maxRarity,
+                                   boolean hasWeightRange, double minWeight, double maxWeight) {
+        BitSet rows = columns.scan(type, minRarity, maxRarity, hasWeightRange, minWeight, maxWeight);
+        List<Item> results = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            results.add(slots.get(row));
+        }
+        return results;
+    }
+
+    // Starter en sammensat søgning (se InventoryQuery)
+    public InventoryQuery query() {
+        return new InventoryQuery(this);
+    }
+
+    // Til InventoryQuery, der henter strukturerne når søgningen køres (kalderen holder låsen)
+    List<Item> querySlots() {
+        return Collections.unmodifiableList(slots);
+    }
+
+    InventoryIndex queryIndex() {
+        return index;
+    }
+
+    ItemColumns queryColumns() {
+        return columns;
+    }
+
+    // Kører read under læse-låsen (uden lås når concurrent-mode er slået fra)
+    <T> T readLocked(Supplier<T> read) {
+        long stamp = lockRead();
+        try {
+            return read.get();
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
     public boolean isEmpty() {
-        return slots.isEmpty();
+        return size() == 0;
     }
 
-    // UI får kun lov at læse listen, ikke ændre den direkte
+    // Antal besatte slots
+    public int size() {
+        if (lock == null) {
+            return slots.size();
+        }
+        long stamp = lock.tryOptimisticRead();
+        int size = slots.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = slots.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    // UI får kun lov at læse listen, ikke ændre den direkte.
+    // I concurrent-mode er det en kopi, så læseren aldrig ser listen midt i en ændring.
     public List<Item> getItems() {
-        return Collections.unmodifiableList(slots);
+        if (lock == null) {
+            return Collections.unmodifiableList(slots);
+        }
+        long stamp = lock.readLock();
+        try {
+            return List.copyOf(slots);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Itemets position i getItems(), eller -1 hvis det ikke ligger i dette inventory (O(log n))
+    public int indexOf(Item item) {
+        if (item == null) {
+            return -1;
+        }
+        long stamp = lockRead();
+        try {
+            return rowOf(item);
+        } finally {
+            unlockRead(stamp);
+        }
     }
 
     // --- sortering ---
 
+    // Levende sorteret visning (fx ItemSorter.BY_NAME). Ændrer ikke slot-rækkefølgen,
+    // og holdes opdateret ved hver ændring, så den ikke skal sorteres igen ved næste visning.
+    // Genbrug samme Comparator-instans – hver ny rækkefølge får sin egen visning – og luk
+    // visningen (close) når den ikke skal bruges mere, så inventory ikke opdaterer den forgæves.
+    public SortedItemView sortedView(Comparator<Item> order) {
+        long stamp = lockWrite(); // opretter evt. visningen i indekset
+        try {
+            return index.view(order, slots, this);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // Kaldes af SortedItemView.close()
+    void releaseView(SortedItemView view) {
+        long stamp = lockWrite();
+        try {
+            index.release(view);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // sortBy-metoderne herunder ændrer selve slot-rækkefølgen
+
+    public void sortBy(Comparator<Item> order) {
+        long stamp = lockWrite();
+        try {
+            slots.sort(order);
+            renumberSlots();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
     public void sortByName() {
-        slots.sort(Comparator.comparing(Item::getName));
+        sortBy(ItemSorter.BY_NAME);
     }
 
     public void sortByWeight() {
-        slots.sort(Comparator.comparing(Item::getWeight));
+        sortBy(ItemSorter.BY_WEIGHT);
     }
 
+    // Counting sort på enum-ordinal (se ItemSorter) – O(n) og stabil
     public void sortByType() {
-        slots.sort(Comparator.comparing(Item::getType));
+        long stamp = lockWrite();
+        try {
+            ItemSorter.byType(slots);
+            renumberSlots();
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
-    // Sorterer inventory efter rarity ved brug af insertion sort og enum-rækkefølge
+    // Counting sort på rarity-rækkefølgen (COMMON -> LEGENDARY).
+    // Erstatter den tidligere insertion sort (O(n²)); stadig stabil.
     public void sortByRarity() {
-        int n = slots.size();
-
-        for (int i = 1; i < n; i++) {
-            Item current = slots.get(i);
-            int currentRank = current.getRarity().ordinal();
-            int j = i - 1;
-
-            // flyt items med højere rarityRank opad i listen
-            while (j >= 0 && slots.get(j).getRarity().ordinal() > currentRank) {
-                slots.set(j + 1, slots.get(j));
-                j--;
-            }
-
-            // indsæt current det rigtige sted
-            slots.set(j + 1, current);
+        long stamp = lockWrite();
+        try {
+            ItemSorter.byRarity(slots);
+            renumberSlots();
+        } finally {
+            unlockWrite(stamp);
         }
     }
 
@@ -206,20 +1299,26 @@ public class Inventory {
             return false;
         }
 
-        // kan ikke unlock forbi max slots
-        if (unlockedSlots + amount > maxSlots) {
-            return false;
-        }
+        long stamp = lockWrite();
+        try {
+            // kan ikke unlock forbi max slots
+            if (unlockedSlots + amount > maxSlots) {
+                return false;
+            }
 
-        // opdater unlocked slots
-        unlockedSlots += amount;
-        return true;
+            // opdater unlocked slots
+            unlockedSlots += amount;
+            changed();
+            return true;
+        } finally {
+            unlockWrite(stamp);
+        }
     }
 
     @Override
     public String toString() {
         // Domain-toString bør være debug/neutral (ikke UI-tabel).
-        return "Inventory{items=" + slots.size() +
+        return "Inventory{items=" + size() +
                 ", totalWeight=" + String.format("%.1f", getTotalWeight()) + "/" + String.format("%.1f", maxWeight) +
                 ", unlockedSlots=" + unlockedSlots + "/" + maxSlots +
                 "}";
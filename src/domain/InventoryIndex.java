@@ -0,0 +1,413 @@
+package domain;
+
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+// Opslagsindeks over items i et inventory, så opslag ikke skal loope alle slots.
+// Inventory holder indekset opdateret ved add/remove/sort/clear og når et items felter ændres.
+// Alle buckets er ordnet efter slot-rækkefølge, så resultater kommer i samme rækkefølge som i inventory.
+class InventoryIndex {
+
+    static final Comparator<Item> SLOT_ORDER = Comparator.comparingLong(Item::getSlotSeq);
+
+    // navn (lowercase) -> items med det navn
+    private final Map<String, TreeSet<Item>> byName = new HashMap<>();
+
+    // én bucket pr. enum-værdi (bruges af filterByType / filterByRarity)
+    private final EnumMap<ItemType, TreeSet<Item>> byType = new EnumMap<>(ItemType.class);
+    private final EnumMap<Rarity, TreeSet<Item>> byRarity = new EnumMap<>(Rarity.class);
+
+    // vægt -> items, sorteret så et vægt-interval kan slås op direkte
+    private final NavigableMap<Double, TreeSet<Item>> byWeight = new TreeMap<>();
+
+    // trigram (3 tegn) -> navne-nøgler der indeholder det, til "navn indeholder"-søgning.
+    // Peger på navne (ikke items), så items med samme navn kun står der én gang.
+    private final Map<String, Set<String>> byTrigram = new HashMap<>();
+
+    private static final int GRAM = 3;
+
+    // antal items i indekset
+    private int size = 0;
+
+    // sorterede visninger der er bedt om (oprettes først når de bruges)
+    private final Map<Comparator<Item>, SortedItemView> views = new HashMap<>();
+
+    // false = type/rarity/vægt-buckets vedligeholdes ikke, fordi inventory har kolonne-lager
+    // og slår de felter op i kolonnerne i stedet (se Inventory.enableColumnarStorage).
+    // Navne, trigrams og visninger er der altid.
+    private boolean fieldBuckets = true;
+
+    // Samme nøgle for "Potion", "potion" og "POTION" (svarer til equalsIgnoreCase).
+    static String nameKey(String name) {
+        return (name == null) ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    void add(Item item) {
+        String key = nameKey(item.getName());
+        if (!byName.containsKey(key)) {
+            addTrigrams(key); // første item med dette navn
+        }
+        addTo(byName, key, item);
+        size++;
+        if (fieldBuckets) addToFields(item);
+        for (SortedItemView view : views.values()) {
+            view.add(item);
+        }
+    }
+
+    private void addToFields(Item item) {
+        addTo(byType, item.getType(), item);
+        addTo(byRarity, item.getRarity(), item);
+        addTo(byWeight, item.getWeight(), item);
+    }
+
+    void remove(Item item) {
+        String key = nameKey(item.getName());
+        if (removeFrom(byName, key, item)) size--;
+        if (!byName.containsKey(key)) {
+            removeTrigrams(key); // sidste item med dette navn er væk
+        }
+        if (fieldBuckets) {
+            removeFrom(byType, item.getType(), item);
+            removeFrom(byRarity, item.getRarity(), item);
+            removeFrom(byWeight, item.getWeight(), item);
+        }
+        for (SortedItemView view : views.values()) {
+            view.remove(item);
+        }
+    }
+
+    // Slår type/rarity/vægt-buckets til (bygges op fra items) eller fra (smides væk)
+    void useFieldBuckets(boolean on, Iterable<Item> items) {
+        if (on == fieldBuckets) return;
+        fieldBuckets = on;
+        byType.clear();
+        byRarity.clear();
+        byWeight.clear();
+        if (on) {
+            for (Item item : items) {
+                addToFields(item);
+            }
+        }
+    }
+
+    boolean hasFieldBuckets() {
+        return fieldBuckets;
+    }
+
+    void clear() {
+        size = 0;
+        byName.clear();
+        byTrigram.clear();
+        byType.clear();
+        byRarity.clear();
+        byWeight.clear();
+        for (SortedItemView view : views.values()) {
+            view.clear();
+        }
+    }
+
+    // Ny slot-rækkefølge (efter sortering): buckets er ordnet efter slotSeq, så de bygges op igen.
+    // Trigram-postings peger på navne og afhænger ikke af rækkefølgen, så dem beholder vi.
+    void reorder(Iterable<Item> items) {
+        byName.replaceAll((key, bucket) -> new TreeSet<>(SLOT_ORDER));
+        byType.clear();
+        byRarity.clear();
+        byWeight.clear();
+        for (SortedItemView view : views.values()) {
+            view.clear();
+        }
+
+        for (Item item : items) {
+            byName.get(nameKey(item.getName())).add(item);
+            if (fieldBuckets) addToFields(item);
+            for (SortedItemView view : views.values()) {
+                view.add(item);
+            }
+        }
+    }
+
+    // Henter (eller opretter) en visning for rækkefølgen; nye visninger fyldes én gang med items.
+    // Hvert kald tæller som én bruger af visningen (se release).
+    SortedItemView view(Comparator<Item> order, Iterable<Item> items, Inventory owner) {
+        SortedItemView view = views.get(order);
+        if (view == null) {
+            view = new SortedItemView(order, owner);
+            for (Item item : items) {
+                view.add(item);
+            }
+            views.put(order, view);
+        }
+        view.use(true);
+        return view;
+    }
+
+    // En bruger har lukket visningen; den sidste fjerner den, så den ikke opdateres mere
+    void release(SortedItemView view) {
+        if (views.get(view.getOrder()) == view && view.use(false) == 0) {
+            views.remove(view.getOrder());
+            view.clear();
+        }
+    }
+
+    // Et felt uden for indekset ændres (fx stack-størrelse): visningerne kan sortere på hvad som
+    // helst, så item tages ud af dem før ændringen og sættes ind igen efter.
+    void removeFromViews(Item item) {
+        for (SortedItemView view : views.values()) {
+            view.remove(item);
+        }
+    }
+
+    void addToViews(Item item) {
+        for (SortedItemView view : views.values()) {
+            view.add(item);
+        }
+    }
+
+    private void addTrigrams(String key) {
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            byTrigram.computeIfAbsent(key.substring(i, i + GRAM), g -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void removeTrigrams(String key) {
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            String gram = key.substring(i, i + GRAM);
+            Set<String> names = byTrigram.get(gram);
+            if (names != null && names.remove(key) && names.isEmpty()) {
+                byTrigram.remove(gram);
+            }
+        }
+    }
+
+    private static <K> void addTo(Map<K, TreeSet<Item>> map, K key, Item item) {
+        if (key == null) return; // fx item uden type – kan ikke slås op på den nøgle
+        map.computeIfAbsent(key, k -> new TreeSet<>(SLOT_ORDER)).add(item);
+    }
+
+    // true hvis item lå i bucket'en
+    private static <K> boolean removeFrom(Map<K, TreeSet<Item>> map, K key, Item item) {
+        if (key == null) return false;
+        TreeSet<Item> bucket = map.get(key);
+        if (bucket == null || !bucket.remove(item)) {
+            return false;
+        }
+        if (bucket.isEmpty()) {
+            map.remove(key);
+        }
+        return true;
+    }
+
+    // Første item (i slot-rækkefølge) med navnet, eller null
+    Item findByName(String name) {
+        TreeSet<Item> bucket = byName.get(nameKey(name));
+        return (bucket == null) ? null : bucket.first();
+    }
+
+    // Alle items med navnet (case-insensitive), i slot-rækkefølge
+    List<Item> findAllByName(String name) {
+        return toList(byName.get(nameKey(name)));
+    }
+
+    // Første consumable med navnet – bruges til stacking
+    Consumable findConsumableByName(String name) {
+        TreeSet<Item> bucket = byName.get(nameKey(name));
+        if (bucket == null) return null;
+
+        for (Item item : bucket) {
+            if (item instanceof Consumable c) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    // Alle items hvor navnet indeholder text (case-insensitive), i slot-rækkefølge.
+    // Navne-kandidater findes ved at fælles-mængden af tekstens trigrams; kun de navne
+    // tjekkes med contains. Kortere tekst end et trigram tjekkes mod de distinkte navne.
+    List<Item> findByNameContains(String text) {
+        String needle = nameKey(text);
+        List<Item> results = new ArrayList<>();
+
+        for (String key : namesContaining(needle)) {
+            results.addAll(byName.get(key));
+        }
+
+        results.sort(SLOT_ORDER);
+        return results;
+    }
+
+    // Billigt overslag over antal items for findByNameContains (bruges af InventoryQuery).
+    // Øvre grænse: items med et navn fra tekstens korteste posting-liste.
+    // Korte tekster (under et trigram) kan matche alt, så de skønnes til hele inventory.
+    int estimateByNameContains(String text) {
+        String needle = nameKey(text);
+        if (needle.length() < GRAM) {
+            return size;
+        }
+
+        Set<String> smallest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<String> names = byTrigram.get(needle.substring(i, i + GRAM));
+            if (names == null) {
+                return 0; // et trigram findes slet ikke
+            }
+            if (smallest == null || names.size() < smallest.size()) {
+                smallest = names;
+            }
+        }
+
+        int items = 0;
+        for (String key : smallest) {
+            items += byName.get(key).size();
+        }
+        return items;
+    }
+
+    private List<String> namesContaining(String needle) {
+        List<String> matches = new ArrayList<>();
+
+        if (needle.length() < GRAM) {
+            for (String key : byName.keySet()) {
+                if (key.contains(needle)) matches.add(key);
+            }
+            return matches;
+        }
+
+        // find tekstens trigrams og start fra den korteste posting-liste
+        List<Set<String>> postings = new ArrayList<>();
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<String> names = byTrigram.get(needle.substring(i, i + GRAM));
+            if (names == null) {
+                return matches; // et trigram findes slet ikke -> ingen resultater
+            }
+            postings.add(names);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> smallest = postings.get(0);
+        for (String key : smallest) {
+            if (inAll(key, postings) && key.contains(needle)) {
+                matches.add(key);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean inAll(String key, List<Set<String>> postings) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(key)) return false;
+        }
+        return true;
+    }
+
+    // findByType/Rarity/Weight og count/stream herunder kræver field buckets (se useFieldBuckets)
+
+    List<Item> findByType(ItemType type) {
+        return toList(byType.get(type));
+    }
+
+    List<Item> findByRarity(Rarity rarity) {
+        return toList(byRarity.get(rarity));
+    }
+
+    // Alle items med min <= weight <= max, i slot-rækkefølge.
+    // Kun de vægte der ligger i intervallet bliver besøgt.
+    List<Item> findByWeight(double min, double max) {
+        List<Item> results = new ArrayList<>();
+
+        for (TreeSet<Item> bucket : weightRange(min, max).values()) {
+            results.addAll(bucket);
+        }
+
+        // flere vægt-buckets -> sæt tilbage i slot-rækkefølge
+        results.sort(SLOT_ORDER);
+        return results;
+    }
+
+    // --- bruges af InventoryQuery til at vælge det mest selektive indeks ---
+
+    int countByType(ItemType type) {
+        TreeSet<Item> bucket = byType.get(type);
+        return (bucket == null) ? 0 : bucket.size();
+    }
+
+    Stream<Item> streamByType(ItemType type) {
+        TreeSet<Item> bucket = byType.get(type);
+        return (bucket == null) ? Stream.empty() : bucket.stream();
+    }
+
+    int countByRarity(Rarity min, Rarity max) {
+        int count = 0;
+        for (Rarity r : rarityRange(min, max)) {
+            TreeSet<Item> bucket = byRarity.get(r);
+            if (bucket != null) count += bucket.size();
+        }
+        return count;
+    }
+
+    // Items med rarity mellem min og max – i slot-rækkefølge
+    Stream<Item> streamByRarity(Rarity min, Rarity max) {
+        List<Rarity> range = rarityRange(min, max);
+        if (range.size() == 1) {
+            TreeSet<Item> bucket = byRarity.get(range.get(0));
+            return (bucket == null) ? Stream.empty() : bucket.stream();
+        }
+        return range.stream()
+                .map(byRarity::get)
+                .filter(bucket -> bucket != null)
+                .flatMap(Collection::stream)
+                .sorted(SLOT_ORDER);
+    }
+
+    int countByWeight(double min, double max) {
+        int count = 0;
+        for (TreeSet<Item> bucket : weightRange(min, max).values()) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    Stream<Item> streamByWeight(double min, double max) {
+        return weightRange(min, max).values().stream()
+                .flatMap(Collection::stream)
+                .sorted(SLOT_ORDER);
+    }
+
+    private NavigableMap<Double, TreeSet<Item>> weightRange(double min, double max) {
+        // ugyldigt interval (eller NaN) giver ingen resultater, ligesom den gamle løkke
+        if (!(min <= max)) {
+            return new TreeMap<>();
+        }
+        return byWeight.subMap(min, true, max, true);
+    }
+
+    private static List<Rarity> rarityRange(Rarity min, Rarity max) {
+        List<Rarity> range = new ArrayList<>();
+        for (Rarity r : Rarity.values()) {
+            if (r.compareTo(min) >= 0 && r.compareTo(max) <= 0) {
+                range.add(r);
+            }
+        }
+        return range;
+    }
+
+    private static List<Item> toList(Collection<Item> bucket) {
+        return (bucket == null) ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+}
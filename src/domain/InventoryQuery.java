@@ -0,0 +1,243 @@
+package domain;
+
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+import exceptions.NegativeValues;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Sammensat søgning i et inventory, hvor alle betingelser skal være opfyldt (AND).
+// Bygges op med kæde-kald, fx "RARE+ våben mellem 2 og 10 kg med 'sword' i navnet":
+//
+//   inventory.query()
+//           .type(ItemType.WEAPON)
+//           .minRarity(Rarity.RARE)
+//           .weightBetween(2, 10)
+//           .nameContains("sword")
+//           .list();
+//
+// Den betingelse som indekset kan indsnævre mest, bruges som udgangspunkt.
+// Resten tjekkes lazy på en stream, så der aldrig laves flere fulde scanninger.
+public class InventoryQuery {
+
+    // navne-kandidater over 1/4 af inventory -> scan hellere kolonnerne (kun med kolonne-lager)
+    private static final int COLUMN_SCAN_FRACTION = 4;
+
+    private final Inventory inventory;
+
+    // inventory's strukturer, hentet når søgningen køres (se resolve) – ikke da den blev bygget,
+    // da replaceWith og enableColumnarStorage kan skifte dem ud ind imellem
+    private List<Item> slots;
+    private InventoryIndex index;
+    private ItemColumns columns; // null hvis inventory ikke bruger kolonne-lager
+
+    // betingelser (null/ikke sat = ingen betingelse)
+    private ItemType type;
+    private Rarity minRarity;
+    private Rarity maxRarity;
+    private boolean hasWeightRange;
+    private double minWeight;
+    private double maxWeight;
+    private String nameText;
+
+    // sættes af candidates(): navne-indekset leverede kandidaterne, så navnet skal ikke tjekkes igen
+    private boolean nameIsSource;
+
+    // rækkefølge og paging (standard: slot-rækkefølge, alle resultater)
+    private Comparator<Item> order;
+    private int offset = 0;
+    private int limit = Integer.MAX_VALUE;
+
+    // Oprettes via Inventory.query()
+    InventoryQuery(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    // --- betingelser ---
+
+    public InventoryQuery type(ItemType type) {
+        this.type = type;
+        return this;
+    }
+
+    public InventoryQuery rarity(Rarity rarity) {
+        this.minRarity = rarity;
+        this.maxRarity = rarity;
+        return this;
+    }
+
+    // fx minRarity(RARE) = RARE, EPIC og LEGENDARY
+    public InventoryQuery minRarity(Rarity rarity) {
+        this.minRarity = rarity;
+        return this;
+    }
+
+    public InventoryQuery maxRarity(Rarity rarity) {
+        this.maxRarity = rarity;
+        return this;
+    }
+
+    public InventoryQuery weightBetween(double min, double max) {
+        this.hasWeightRange = true;
+        this.minWeight = min;
+        this.maxWeight = max;
+        return this;
+    }
+
+    // Case-insensitive; tom/blank tekst ignoreres
+    public InventoryQuery nameContains(String text) {
+        this.nameText = (text == null || text.isBlank()) ? null : InventoryIndex.nameKey(text);
+        return this;
+    }
+
+    // --- rækkefølge og paging ---
+
+    public InventoryQuery orderBy(Comparator<Item> order) {
+        this.order = order;
+        return this;
+    }
+
+    public InventoryQuery offset(int offset) {
+        if (offset < 0) {
+            throw new NegativeValues("Offset cannot be negative.");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    public InventoryQuery limit(int limit) {
+        if (limit < 0) {
+            throw new NegativeValues("Limit cannot be negative.");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    // --- udførsel ---
+
+    // I concurrent-mode køres hele søgningen under læse-låsen (andre læsere kan køre samtidig)
+    public List<Item> list() {
+        return inventory.readLocked(() -> evaluate().collect(Collectors.toList()));
+    }
+
+    // Lazy stream over inventory. I concurrent-mode er resultatet samlet på forhånd (under låsen),
+    // da en lazy stream ville læse inventory efter låsen er sluppet.
+    public Stream<Item> stream() {
+        return inventory.isConcurrentAccess() ? list().stream() : evaluate();
+    }
+
+    private void resolve() {
+        slots = inventory.querySlots();
+        index = inventory.queryIndex();
+        columns = inventory.queryColumns();
+    }
+
+    private Stream<Item> evaluate() {
+        resolve();
+        Stream<Item> results = candidates();
+
+        if (results == null && columns != null) {
+            // intet indeks hjælper: scan kolonnerne, hvor type, rarity og vægt tjekkes på primitive arrays
+            results = columns.scan(type, minRarity, maxRarity, hasWeightRange, minWeight, maxWeight)
+                    .stream()
+                    .mapToObj(slots::get);
+            if (nameText != null) {
+                results = results.filter(i -> InventoryIndex.nameKey(i.getName()).contains(nameText));
+            }
+            return order(results);
+        }
+        if (results == null) {
+            results = slots.stream();
+        }
+
+        // resten af betingelserne tjekkes item for item (billige felt-tjek)
+        if (type != null) {
+            results = results.filter(i -> i.getType() == type);
+        }
+        if (minRarity != null || maxRarity != null) {
+            results = results.filter(i -> i.getRarity() != null
+                    && i.getRarity().compareTo(lowestRarity()) >= 0
+                    && i.getRarity().compareTo(highestRarity()) <= 0);
+        }
+        if (hasWeightRange) {
+            results = results.filter(i -> i.getWeight() >= minWeight && i.getWeight() <= maxWeight);
+        }
+        if (nameText != null && !nameIsSource) {
+            // kun de få kandidater fra et andet indeks tjekkes direkte på navnet
+            results = results.filter(i -> InventoryIndex.nameKey(i.getName()).contains(nameText));
+        }
+
+        return order(results);
+    }
+
+    private Stream<Item> order(Stream<Item> results) {
+        if (order != null) {
+            results = results.sorted(order);
+        }
+        return results.skip(offset).limit(limit);
+    }
+
+    // Vælger det indeks der giver færrest kandidater.
+    // Returnerer null hvis intet indeks er bedre end en fuld scanning.
+    // (Navne-opslaget laves kun hvis det faktisk bliver valgt – se estimateByNameContains.)
+    private Stream<Item> candidates() {
+        int best = slots.size();
+        Stream<Item> source = null;
+        nameIsSource = false;
+
+        // med kolonne-lager har indekset kun navne: type, rarity og vægt ligger i kolonnerne
+        if (columns == null) {
+            if (type != null) {
+                int count = index.countByType(type);
+                if (count < best) {
+                    best = count;
+                    source = index.streamByType(type);
+                }
+            }
+            if (minRarity != null || maxRarity != null) {
+                int count = index.countByRarity(lowestRarity(), highestRarity());
+                if (count < best) {
+                    best = count;
+                    source = index.streamByRarity(lowestRarity(), highestRarity());
+                }
+            }
+            if (hasWeightRange) {
+                int count = index.countByWeight(minWeight, maxWeight);
+                if (count < best) {
+                    best = count;
+                    source = index.streamByWeight(minWeight, maxWeight);
+                }
+            }
+        }
+        // navne-søgningen er et skøn (trigram-postings), så den kun køres hvis den vinder
+        if (nameText != null) {
+            int estimate = index.estimateByNameContains(nameText);
+            if (estimate < best) {
+                best = estimate;
+                source = index.findByNameContains(nameText).stream();
+                nameIsSource = true;
+            }
+        }
+
+        // Med kolonne-lager scannes de primitive arrays, medmindre navne-indekset giver få kandidater
+        // (en stor del af inventory ud af indekset er dyrere: TreeSet-gennemløb + sortering efter slot).
+        if (columns != null && best > slots.size() / COLUMN_SCAN_FRACTION) {
+            nameIsSource = false;
+            return null;
+        }
+
+        return source;
+    }
+
+    private Rarity lowestRarity() {
+        return (minRarity != null) ? minRarity : Rarity.values()[0];
+    }
+
+    private Rarity highestRarity() {
+        Rarity[] all = Rarity.values();
+        return (maxRarity != null) ? maxRarity : all[all.length - 1];
+    }
+}
@@ -0,0 +1,62 @@
+package domain;
+
+import java.util.Collections;
+import java.util.List;
+
+// Uforanderligt billede af et inventory på et bestemt tidspunkt (se Inventory.snapshot).
+// Ændrer sig ikke når inventory ændres, så den kan gemmes eller vises fra en anden tråd
+// (fx autosave) uden lås. Items deles med senere snapshots, så det er billigt at tage et.
+public class InventorySnapshot {
+
+    private final long version;
+    private final double maxWeight;
+    private final int maxSlots;
+    private final int unlockedSlots;
+    private final double totalWeight;
+    private final List<Item> items;
+
+    InventorySnapshot(long version, double maxWeight, int maxSlots, int unlockedSlots, double totalWeight,
+                      List<Item> items) {
+        this.version = version;
+        this.maxWeight = maxWeight;
+        this.maxSlots = maxSlots;
+        this.unlockedSlots = unlockedSlots;
+        this.totalWeight = totalWeight;
+        this.items = Collections.unmodifiableList(items);
+    }
+
+    // inventory's version da snapshot blev taget (se Inventory.getVersion)
+    public long getVersion() {
+        return version;
+    }
+
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public int getMaxSlots() {
+        return maxSlots;
+    }
+
+    public int getUnlockedSlots() {
+        return unlockedSlots;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    // Items er frosne kopier, der deles med andre snapshots: de kan læses, men ikke ændres
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "InventorySnapshot{version=" + version + ", items=" + items.size() + "}";
+    }
+}
@@ -13,6 +13,17 @@ public class Item {
     private Rarity rarity;
     private double weight;
 
+    // Det inventory item ligger i (null hvis det ikke ligger i et inventory).
+    // Inventory sætter selv feltet, så den kan holde sin vægt opdateret når et felt ændres.
+    // volatile: læses uden lås i change(), når inventory bruges fra flere tråde.
+    private volatile Inventory owner;
+
+    // Position i inventory's slot-rækkefølge (sættes af Inventory, bruges af indekset)
+    private long slotSeq;
+
+    // true for kopier i et snapshot: de deles mellem snapshots og må derfor ikke ændres
+    private boolean frozen;
+
     public Item(String name, ItemType type, Rarity rarity, double weight) {
         this.name = name;
         this.type = type;
@@ -29,7 +40,8 @@ public class Item {
     }
 
     public void setName(String name) { // simpelt navneskift
-        this.name = name;
+        // navnet er nøgle i inventory's indeks, så item flyttes med over i den nye bucket
+        change(true, () -> this.name = name);
     }
 
     public ItemType getType() {
@@ -37,7 +49,7 @@ public class Item {
     }
 
     public void setType(ItemType type) {
-        this.type = type;
+        change(true, () -> this.type = type);
     }
 
     public Rarity getRarity() {
@@ -45,7 +57,7 @@ public class Item {
     }
 
     public void setRarity(Rarity rarity) {
-        this.rarity = rarity;
+        change(true, () -> this.rarity = rarity);
     }
 
     public double getWeight() {
@@ -58,7 +70,63 @@ public class Item {
         if (weight <= 0) {
             throw new NegativeValues("Weight must be > 0.");
         }
-        this.weight = weight;
+        change(true, () -> this.weight = weight);
+    }
+
+    // Hvor meget dette item vejer i inventory.
+    // Consumable overskriver, så en stack tæller weight * stackSize.
+    public double getStackWeight() {
+        return weight;
+    }
+
+    // Frakoblet kopi med samme felter (bruges til snapshots). Subklasser kopierer deres egne felter.
+    Item copy() {
+        return new Item(name, type, rarity, weight);
+    }
+
+    // Kopi der ikke kan ændres (til Inventory's snapshots, se PersistentItemList)
+    Item frozenCopy() {
+        Item copy = copy();
+        copy.frozen = true;
+        return copy;
+    }
+
+    // --- kobling til inventory (kun domain-pakken) ---
+
+    Inventory getOwner() {
+        return owner;
+    }
+
+    void setOwner(Inventory owner) {
+        this.owner = owner;
+    }
+
+    long getSlotSeq() {
+        return slotSeq;
+    }
+
+    void setSlotSeq(long slotSeq) {
+        this.slotSeq = slotSeq;
+    }
+
+    // Ændrer et felt. Ligger item i et inventory, sker ændringen gennem det, så indeks, løbende
+    // vægt og kolonner følger med i samme skridt (og under inventory's lås i concurrent-mode).
+    // indexed = feltet indgår i indekset (navn, type, rarity, vægt).
+    void change(boolean indexed, Runnable change) {
+        if (frozen) {
+            throw new UnsupportedOperationException("Items in a snapshot cannot be changed");
+        }
+        while (true) {
+            Inventory current = owner;
+            if (current == null) {
+                change.run();
+                return;
+            }
+            if (current.changeItem(this, indexed, change)) {
+                return;
+            }
+            // item blev fjernet/flyttet imens – prøv igen med den nye ejer
+        }
     }
 
     @Override
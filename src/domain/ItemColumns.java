@@ -0,0 +1,124 @@
+package domain;
+
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Kolonne-lager (structure of arrays) for et inventory: én primitiv array pr. felt,
+// hvor række i svarer til slot i. Bruges til scanninger over store inventories
+// (bank/lager), så de kører over sammenhængende arrays i stedet for at hoppe mellem Item-objekter.
+// Er kolonnerne slået til, er de den eneste kilde til type/rarity/vægt-filtre (indekset holder
+// så kun navne).
+//
+// Bemærk: kolonnerne spejler Item-objekterne, de erstatter dem ikke – getItems() og resten af
+// API'et udleverer items, så de skal findes. Besparelsen pr. item er derfor kun indeksets
+// type/rarity/vægt-buckets minus kolonnernes ca. 22 bytes (målt: ca. 120 bytes af ca. 880),
+// ikke den store reduktion en rigtig structure-of-arrays backing ville give.
+class ItemColumns {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte NONE = -1; // enum-felt er null
+
+    private int size = 0;
+
+    private double[] weight = new double[INITIAL_CAPACITY];
+    private byte[] type = new byte[INITIAL_CAPACITY];
+    private byte[] rarity = new byte[INITIAL_CAPACITY];
+    private int[] stat = new int[INITIAL_CAPACITY];   // damage / defence afhængig af type
+    private int[] stack = new int[INITIAL_CAPACITY];  // vægt-gange: stackSize for Consumable, ellers 1
+
+    int size() {
+        return size;
+    }
+
+    void append(Item item) {
+        ensureCapacity(size + 1);
+        write(size, item);
+        size++;
+    }
+
+    // opdaterer en række efter et felt er ændret på item
+    void set(int row, Item item) {
+        write(row, item);
+    }
+
+    void remove(int row) {
+        int moved = size - row - 1;
+        if (moved > 0) {
+            System.arraycopy(weight, row + 1, weight, row, moved);
+            System.arraycopy(type, row + 1, type, row, moved);
+            System.arraycopy(rarity, row + 1, rarity, row, moved);
+            System.arraycopy(stat, row + 1, stat, row, moved);
+            System.arraycopy(stack, row + 1, stack, row, moved);
+        }
+        size--;
+    }
+
+    // fylder alle rækker igen (efter sortering eller clear)
+    void rebuild(List<Item> items) {
+        size = 0;
+        ensureCapacity(items.size());
+        for (Item item : items) {
+            write(size++, item);
+        }
+    }
+
+    // Samme regel som Item.getStackWeight: weight * stack (stack er 1 for alt andet end Consumable)
+    double totalWeight() {
+        double sum = 0;
+
+        for (int i = 0; i < size; i++) {
+            sum += weight[i] * stack[i];
+        }
+        return sum;
+    }
+
+    // Scanner alle rækker og returnerer dem der opfylder alle betingelserne (null = ingen betingelse).
+    // Navne har ingen kolonne: en tabel med hvert navn ville koste mere pr. item end den sparer,
+    // så "navn indeholder" tjekkes af kalderen på de rækker der kommer igennem.
+    BitSet scan(ItemType itemType, Rarity minRarity, Rarity maxRarity,
+                boolean hasWeightRange, double minWeight, double maxWeight) {
+
+        byte wantedType = (itemType == null) ? NONE : (byte) itemType.ordinal();
+        int lowRarity = (minRarity == null) ? 0 : minRarity.ordinal();
+        int highRarity = (maxRarity == null) ? Rarity.values().length - 1 : maxRarity.ordinal();
+        boolean anyRarity = (minRarity == null && maxRarity == null);
+
+        BitSet rows = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (wantedType != NONE && type[i] != wantedType) continue;
+            if (!anyRarity && (rarity[i] < lowRarity || rarity[i] > highRarity)) continue;
+            if (hasWeightRange && !(weight[i] >= minWeight && weight[i] <= maxWeight)) continue;
+            rows.set(i);
+        }
+        return rows;
+    }
+
+    private void write(int row, Item item) {
+        weight[row] = item.getWeight();
+        type[row] = (item.getType() == null) ? NONE : (byte) item.getType().ordinal();
+        rarity[row] = (item.getRarity() == null) ? NONE : (byte) item.getRarity().ordinal();
+        stat[row] = statOf(item);
+        stack[row] = (item instanceof Consumable c) ? c.getStackSize() : 1;
+    }
+
+    private static int statOf(Item item) {
+        if (item instanceof Weapon w) return w.getDamage();
+        if (item instanceof Armour a) return a.getDefence();
+        return 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= weight.length) return;
+
+        int capacity = Math.max(needed, weight.length * 2);
+        weight = Arrays.copyOf(weight, capacity);
+        type = Arrays.copyOf(type, capacity);
+        rarity = Arrays.copyOf(rarity, capacity);
+        stat = Arrays.copyOf(stat, capacity);
+        stack = Arrays.copyOf(stack, capacity);
+    }
+}
@@ -0,0 +1,62 @@
+package domain;
+
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// Sorteringsalgoritmer for item-lister (bruges af Inventory og benchmark).
+// Rarity og ItemType har kun få værdier, så en counting sort på enum-ordinal
+// klarer det i én optælling + én fordeling: O(n) og stabil (lige items beholder rækkefølgen).
+public final class ItemSorter {
+
+    // Faste rækkefølger til sortering og sorterede visninger (Inventory.sortedView).
+    // Brug de samme instanser, så Inventory kan genbruge en eksisterende visning.
+    public static final Comparator<Item> BY_NAME = Comparator.comparing(Item::getName);
+    public static final Comparator<Item> BY_WEIGHT = Comparator.comparingDouble(Item::getWeight);
+    public static final Comparator<Item> BY_TYPE = Comparator.comparing(Item::getType);
+    public static final Comparator<Item> BY_RARITY = Comparator.comparing(Item::getRarity);
+
+    // sammensatte nøgler
+    public static final Comparator<Item> BY_TYPE_THEN_RARITY = BY_TYPE.thenComparing(BY_RARITY);
+    public static final Comparator<Item> BY_RARITY_DESC_THEN_NAME = BY_RARITY.reversed().thenComparing(BY_NAME);
+
+    private ItemSorter() { }
+
+    public static void byRarity(List<Item> items) {
+        countingSort(items, i -> i.getRarity().ordinal(), Rarity.values().length);
+    }
+
+    public static void byType(List<Item> items) {
+        countingSort(items, i -> i.getType().ordinal(), ItemType.values().length);
+    }
+
+    // Stabil counting sort:
+    // 1) find bucket for hvert item og tæl pr. bucket, 2) regn startposition for hver bucket ud,
+    // 3) læg items på plads i samme rækkefølge som de stod i.
+    private static void countingSort(List<Item> items, ToIntFunction<Item> bucketOf, int buckets) {
+        int n = items.size();
+        Item[] source = items.toArray(new Item[0]);
+        int[] keys = new int[n];
+        int[] start = new int[buckets + 1];
+
+        for (int i = 0; i < n; i++) {
+            keys[i] = bucketOf.applyAsInt(source[i]);
+            start[keys[i] + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) {
+            start[b + 1] += start[b];
+        }
+
+        Item[] sorted = new Item[n];
+        for (int i = 0; i < n; i++) {
+            sorted[start[keys[i]]++] = source[i];
+        }
+
+        for (int i = 0; i < n; i++) {
+            items.set(i, sorted[i]);
+        }
+    }
+}
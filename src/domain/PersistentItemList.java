@@ -0,0 +1,174 @@
+package domain;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Uforanderlig liste af items til snapshots (se Inventory.snapshot).
+// Et implicit, tilfældigt balanceret binært træ: hver knude kender størrelsen af sit undertræ,
+// så positioner findes uden nøgler. En ændring kopierer kun stien fra roden ned til ændringen
+// (O(log n) nye knuder) og deler resten med de tidligere versioner – et snapshot er derfor bare
+// en reference til én version.
+//
+// Balancen holdes ved at merge vælger rod tilfældigt, vægtet efter størrelse (randomized BST),
+// så der ikke skal gemmes prioriteter eller laves rotationer.
+final class PersistentItemList extends AbstractList<Item> {
+
+    static final PersistentItemList EMPTY = new PersistentItemList(null);
+
+    private static final class Node {
+        final Item item;
+        final Node left;
+        final Node right;
+        final int size;
+
+        Node(Item item, Node left, Node right) {
+            this.item = item;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    private final Node root;
+
+    private PersistentItemList(Node root) {
+        this.root = root;
+    }
+
+    // Perfekt balanceret liste med items i den givne rækkefølge (O(n))
+    static PersistentItemList of(List<Item> items) {
+        return items.isEmpty() ? EMPTY : new PersistentItemList(build(items, 0, items.size()));
+    }
+
+    // --- nye versioner (denne liste ændres ikke) ---
+
+    // item tilføjet til sidst
+    PersistentItemList plus(Item item) {
+        return new PersistentItemList(merge(root, new Node(item, null, null)));
+    }
+
+    // item på plads index erstattet
+    PersistentItemList with(int index, Item item) {
+        checkIndex(index);
+        return new PersistentItemList(replace(root, index, item));
+    }
+
+    // item på plads index fjernet (resten rykker en plads frem)
+    PersistentItemList without(int index) {
+        checkIndex(index);
+        Node[] head = split(root, index);
+        Node[] tail = split(head[1], 1);
+        return new PersistentItemList(merge(head[0], tail[1]));
+    }
+
+    // --- List ---
+
+    @Override
+    public Item get(int index) {
+        checkIndex(index);
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.item;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    // In-order gennemløb med egen stak: O(n) i alt i stedet for get(i) pr. element
+    @Override
+    public Iterator<Item> iterator() {
+        return new Iterator<>() {
+            private final ArrayDeque<Node> stack = new ArrayDeque<>();
+            private Node next = root;
+
+            @Override
+            public boolean hasNext() {
+                return next != null || !stack.isEmpty();
+            }
+
+            @Override
+            public Item next() {
+                while (next != null) {
+                    stack.push(next);
+                    next = next.left;
+                }
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node node = stack.pop();
+                next = node.right;
+                return node.item;
+            }
+        };
+    }
+
+    // --- træ-operationer ---
+
+    private static int size(Node node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+    }
+
+    private static Node build(List<Item> items, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new Node(items.get(mid), build(items, from, mid), build(items, mid + 1, to));
+    }
+
+    // a efterfulgt af b. Roden vælges fra a med sandsynlighed |a| / (|a| + |b|).
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (ThreadLocalRandom.current().nextInt(a.size + b.size) < a.size) {
+            return new Node(a.item, a.left, merge(a.right, b));
+        }
+        return new Node(b.item, merge(a, b.left), b.right);
+    }
+
+    // Deler i [de første count, resten]
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            Node[] parts = split(node.left, count);
+            return new Node[] {parts[0], new Node(node.item, parts[1], node.right)};
+        }
+        Node[] parts = split(node.right, count - leftSize - 1);
+        return new Node[] {new Node(node.item, node.left, parts[0]), parts[1]};
+    }
+
+    private static Node replace(Node node, int index, Item item) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node(node.item, replace(node.left, index, item), node.right);
+        }
+        if (index == leftSize) {
+            return new Node(item, node.left, node.right);
+        }
+        return new Node(node.item, node.left, replace(node.right, index - leftSize - 1, item));
+    }
+}
@@ -4,7 +4,7 @@ package domain;
 public class Player {
 
     private String name;
-    private Inventory inventory; // spillerens inventory
+    private volatile Inventory inventory; // spillerens inventory (skiftes ud i ét skridt ved load)
     private Equipment equipment = new Equipment();
 
     public Player(String name) {
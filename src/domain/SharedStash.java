@@ -0,0 +1,281 @@
+package domain;
+
+import domain.enums.AddOutcome;
+import exceptions.NegativeValues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Delt lager (fx en guild-bank), som mange spillere lægger i og tager fra på samme tid.
+// Samme regler som Inventory: en vægtgrænse, et antal slots, og consumables med samme navn
+// stackes. Men lageret er delt i stripes: hvert navn hører til én stripe (efter navnets hash),
+// og hver stripe er et almindeligt Inventory med sin egen lås. Spillere der bruger forskellige
+// navne, venter derfor ikke på hinanden, og en stack findes stadig kun ét sted.
+//
+// Vægt og slots gælder for hele lageret og holdes i atomiske tællere: en indsættelse reserverer
+// sin vægt (og evt. et slot) med compare-and-set, og afvises hvis grænsen er nået.
+//
+// Lageret gemmer kopier: det item man lægger ind, ændres ikke, og ingen udenfor har en
+// reference til det der ligger i lageret – så vægten kan ikke ændres uden om tællerne.
+public class SharedStash {
+
+    private final double maxWeight;
+    private final int slots;
+    private final Inventory[] stripes;
+
+    // samlet vægt (double-bits) og brugte slots for alle stripes
+    private final AtomicLong weightBits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private final AtomicInteger usedSlots = new AtomicInteger();
+
+    // Antal stripes efter antal kerner (4 pr. kerne, så to navne sjældent deler lås)
+    public SharedStash(double maxWeight, int slots) {
+        this(maxWeight, slots, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public SharedStash(double maxWeight, int slots, int stripeCount) {
+        if (maxWeight < 0 || slots < 0) {
+            throw new NegativeValues("Max weight and slots cannot be negative.");
+        }
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        this.maxWeight = maxWeight;
+        this.slots = slots;
+
+        // 2-potens, så en stripe vælges med en maske
+        int count = Integer.highestOneBit(stripeCount);
+        if (count < stripeCount) count <<= 1;
+
+        // stripes har ingen egne grænser – dem holder tællerne for hele lageret
+        stripes = new Inventory[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Inventory(Double.MAX_VALUE / 4, slots, slots);
+        }
+    }
+
+    // --- indsæt ---
+
+    // Lægger en kopi af hele item'et (for consumables hele stacken) i lageret
+    public AddOutcome deposit(Item item) {
+        return deposit(item, (item instanceof Consumable c) ? c.getStackSize() : 1);
+    }
+
+    // Lægger amount enheder af en consumable i lageret (1 for andre items).
+    // ADDED/STACKED = lagt ind, NO_SLOT/TOO_HEAVY = lageret er fuldt, INVALID = forkert amount.
+    public AddOutcome deposit(Item item, int amount) {
+        if (item == null || amount < 1) {
+            return AddOutcome.INVALID;
+        }
+
+        Item stored;
+        if (item instanceof Consumable c) {
+            if (amount > c.getStackSize()) {
+                return AddOutcome.INVALID;
+            }
+            Consumable copy = c.copy();
+            copy.setStackSizeDirect(amount);
+            stored = copy;
+        } else {
+            if (amount != 1) {
+                return AddOutcome.INVALID;
+            }
+            stored = item.copy();
+        }
+
+        Inventory stripe = stripeFor(stored.getName());
+        synchronized (stripe) {
+            // samme stacking-regel som Inventory.addItem: er der en stack med navnet, bruges intet slot,
+            // og de nye enheder vejer det samme pr. stk. som stacken
+            Consumable stack = (stored instanceof Consumable) ? stripe.findStack(stored.getName()) : null;
+            boolean needsSlot = stack == null;
+            double weight = needsSlot ? stored.getStackWeight() : amount * stack.getWeight();
+
+            if (!reserveWeight(weight)) {
+                return AddOutcome.TOO_HEAVY;
+            }
+            if (needsSlot && !reserveSlot()) {
+                releaseWeight(weight);
+                return AddOutcome.NO_SLOT;
+            }
+
+            stripe.addItem(stored);
+            return needsSlot ? AddOutcome.ADDED : AddOutcome.STACKED;
+        }
+    }
+
+    // --- hæv ---
+
+    // Tager amount enheder af name ud (1 for andre items end consumables).
+    // En del af en stack kommer ud som en ny stack. null hvis lageret ikke har nok.
+    public Item withdraw(String name, int amount) {
+        Inventory stripe = stripeFor(name);
+        synchronized (stripe) {
+            Item source = find(stripe, name, amount);
+            if (source == null) {
+                return null;
+            }
+            Item taken = detach(stripe, source, amount);
+            commit(source, taken, amount, taken.getStackWeight());
+            return taken;
+        }
+    }
+
+    // Flytter amount enheder af name direkte over i target (med target's egne regler).
+    // Resultatet er target's addItems-resultat for det ene item: udfaldet, og i getHolders()
+    // det item eller den stack i target der fik enhederne (til fx journalen).
+    // Passer det ikke i target (NO_SLOT/TOO_HEAVY), bliver alt liggende i lageret.
+    // null hvis lageret ikke har nok.
+    // Låse-rækkefølge: stripe før target – kald det ikke mens target's lås holdes.
+    public BatchAddResult withdrawTo(Inventory target, String name, int amount) {
+        Inventory stripe = stripeFor(name);
+        synchronized (stripe) {
+            Item source = find(stripe, name, amount);
+            if (source == null) {
+                return null;
+            }
+
+            Item taken = detach(stripe, source, amount);
+            double weight = taken.getStackWeight();   // før target ejer det
+            BatchAddResult result = target.addItems(List.of(taken));
+
+            if (result.isApplied()) {
+                commit(source, taken, amount, weight);
+            } else if (taken == source) {
+                stripe.addItem(source); // tilbage igen – tællerne er ikke rørt endnu
+            }
+            return result;
+        }
+    }
+
+    // Det item (eller den stack) amount tages fra. Kaldes under stripens lås.
+    private static Item find(Inventory stripe, String name, int amount) {
+        if (amount < 1) {
+            return null;
+        }
+        Consumable stack = stripe.findStack(name);
+        if (stack != null) {
+            return (amount <= stack.getStackSize()) ? stack : null;
+        }
+        Item item = stripe.findItemByName(name);
+        return (item != null && amount == 1) ? item : null;
+    }
+
+    // Hele item'et tages ud af stripen. En del af en stack bliver en ny kopi, og stacken
+    // selv ændres først i commit (så intet skal rulles tilbage hvis target siger nej).
+    private static Item detach(Inventory stripe, Item source, int amount) {
+        if (source instanceof Consumable c && amount < c.getStackSize()) {
+            Consumable part = c.copy();
+            part.setStackSizeDirect(amount);
+            return part;
+        }
+        stripe.removeItem(source);
+        return source;
+    }
+
+    // Udtaget er endeligt: stacken gøres mindre (eller slottet frigives), og vægten gives fri
+    private void commit(Item source, Item taken, int amount, double weight) {
+        if (taken == source) {
+            releaseSlot();
+        } else {
+            Consumable c = (Consumable) source;
+            c.setStackSize(c.getStackSize() - amount);
+        }
+        releaseWeight(weight);
+    }
+
+    // --- opslag ---
+
+    // Antal enheder med navnet (case-insensitive): stack-størrelser for consumables, ellers antal items
+    public int count(String name) {
+        Inventory stripe = stripeFor(name);
+        synchronized (stripe) {
+            int count = 0;
+            for (Item item : stripe.findItemsByName(name)) {
+                count += (item instanceof Consumable c) ? c.getStackSize() : 1;
+            }
+            return count;
+        }
+    }
+
+    // Frosne kopier af alt i lageret, stripe for stripe (ikke ét samlet øjebliksbillede)
+    public List<Item> getItems() {
+        List<Item> items = new ArrayList<>();
+        for (Inventory stripe : stripes) {
+            synchronized (stripe) {
+                items.addAll(stripe.snapshot().getItems());
+            }
+        }
+        return items;
+    }
+
+    public double getTotalWeight() {
+        return Double.longBitsToDouble(weightBits.get());
+    }
+
+    public double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public int getUsedSlots() {
+        return usedSlots.get();
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    // --- stripes og tællere ---
+
+    private Inventory stripeFor(String name) {
+        int h = InventoryIndex.nameKey(name).hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private boolean reserveWeight(double weight) {
+        while (true) {
+            long bits = weightBits.get();
+            double next = Double.longBitsToDouble(bits) + weight;
+            if (Inventory.exceedsMaxWeight(next, maxWeight)) {
+                return false;
+            }
+            if (weightBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return true;
+            }
+        }
+    }
+
+    // aldrig under 0 (afrundingsfejl når lageret tømmes)
+    private void releaseWeight(double weight) {
+        weightBits.getAndUpdate(bits ->
+                Double.doubleToRawLongBits(Math.max(0, Double.longBitsToDouble(bits) - weight)));
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int used = usedSlots.get();
+            if (used >= slots) {
+                return false;
+            }
+            if (usedSlots.compareAndSet(used, used + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void releaseSlot() {
+        usedSlots.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "SharedStash{usedSlots=" + getUsedSlots() + "/" + slots
+                + ", totalWeight=" + getTotalWeight() + "/" + maxWeight
+                + ", stripes=" + stripes.length + "}";
+    }
+}
@@ -0,0 +1,78 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+// Levende, sorteret visning af et inventory (fx efter navn eller vægt).
+// Holdes opdateret af Inventory ved hver add/remove/ændring, så den kan læses i sorteret
+// rækkefølge uden at sortere listen igen – og uden at ændre spillerens egen slot-rækkefølge.
+// Items med samme nøgle står i slot-rækkefølge (stabil).
+//
+// Visninger deles: alle der beder om samme Comparator-instans, får samme visning. Hvert kald til
+// Inventory.sortedView skal følges af ét close(), når visningen ikke skal bruges mere – når
+// den sidste har lukket, holder inventory den ikke længere opdateret og smider den væk.
+public class SortedItemView implements Iterable<Item>, AutoCloseable {
+
+    private final Comparator<Item> order;
+    private final TreeSet<Item> items;
+    private final Inventory owner;
+    private int users;   // antal åbne sortedView-kald (ændres under inventory's skrive-lås)
+
+    SortedItemView(Comparator<Item> order, Inventory owner) {
+        this.order = order;
+        this.owner = owner;
+        this.items = new TreeSet<>(order.thenComparing(InventoryIndex.SLOT_ORDER));
+    }
+
+    Comparator<Item> getOrder() {
+        return order;
+    }
+
+    void add(Item item) {
+        items.add(item);
+    }
+
+    void remove(Item item) {
+        items.remove(item);
+    }
+
+    void clear() {
+        items.clear();
+    }
+
+    // Kaldes af indekset, når visningen udleveres (true) eller lukkes (false).
+    // Returnerer antal brugere bagefter.
+    int use(boolean open) {
+        users = open ? users + 1 : Math.max(0, users - 1);
+        return users;
+    }
+
+    // Frigiver én brugers visning. Når alle har lukket, er visningen tom og opdateres ikke mere.
+    @Override
+    public void close() {
+        owner.releaseView(this);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    // Læse-adgang: UI må iterere, men ikke ændre visningen
+    @Override
+    public Iterator<Item> iterator() {
+        return Collections.unmodifiableSet(items).iterator();
+    }
+
+    // Kopi i sorteret rækkefølge (O(n), ingen sortering)
+    public List<Item> toList() {
+        return new ArrayList<>(items);
+    }
+}
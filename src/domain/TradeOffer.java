@@ -0,0 +1,51 @@
+package domain;
+
+import exceptions.NegativeValues;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Den ene sides bud i en handel (se Inventory.trade): hele items og/eller en del af en
+// consumable-stack. Buddet er bare en liste – om items faktisk ligger hos giveren, og om
+// stacken er stor nok, tjekkes først når handlen udføres (under begge inventories' låse).
+public class TradeOffer {
+
+    // en del af en stack: amount enheder tages fra consumable
+    record Part(Consumable consumable, int amount) { }
+
+    private final List<Item> items = new ArrayList<>();
+    private final List<Part> parts = new ArrayList<>();
+
+    // Hele item'et (for consumables hele stacken)
+    public TradeOffer item(Item item) {
+        items.add(item);
+        return this;
+    }
+
+    // amount enheder fra stacken. Er det hele stacken, flyttes item'et selv.
+    public TradeOffer stack(Consumable consumable, int amount) {
+        if (amount < 1) {
+            throw new NegativeValues("Amount must be at least 1.");
+        }
+        parts.add(new Part(consumable, amount));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty() && parts.isEmpty();
+    }
+
+    List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    List<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    @Override
+    public String toString() {
+        return "TradeOffer{items=" + items.size() + ", stacks=" + parts.size() + "}";
+    }
+}
@@ -0,0 +1,67 @@
+package domain;
+
+import domain.enums.TradeOutcome;
+
+import java.util.List;
+
+// Resultat af Inventory.trade/transfer: udfaldet, og hvilket inventory der stoppede handlen.
+// Gik handlen ikke igennem, er intet ændret på nogen af siderne.
+public class TradeResult {
+
+    // Hvad en gennemført handel ændrede i ét inventory (fx til journalen), i den rækkefølge det
+    // skete: fjernede items (position lige før hvert blev fjernet), stacks der fik ny størrelse,
+    // og items lagt i nye slots (i slot-rækkefølge).
+    public record Changes(List<Integer> removed, List<Consumable> stacked, List<Item> added) {
+        static final Changes NONE = new Changes(List.of(), List.of(), List.of());
+    }
+
+    private final TradeOutcome outcome;
+    private final Inventory blockedBy;  // null når handlen gik igennem
+    private final Inventory first;
+    private final Changes firstChanges;
+    private final Changes secondChanges;
+
+    TradeResult(TradeOutcome outcome, Inventory blockedBy) {
+        this(outcome, blockedBy, null, Changes.NONE, Changes.NONE);
+    }
+
+    // Gennemført handel
+    TradeResult(Inventory first, Changes firstChanges, Changes secondChanges) {
+        this(TradeOutcome.COMPLETED, null, first, firstChanges, secondChanges);
+    }
+
+    private TradeResult(TradeOutcome outcome, Inventory blockedBy, Inventory first,
+                        Changes firstChanges, Changes secondChanges) {
+        this.outcome = outcome;
+        this.blockedBy = blockedBy;
+        this.first = first;
+        this.firstChanges = firstChanges;
+        this.secondChanges = secondChanges;
+    }
+
+    public boolean isCompleted() {
+        return outcome == TradeOutcome.COMPLETED;
+    }
+
+    public TradeOutcome getOutcome() {
+        return outcome;
+    }
+
+    // INVALID: den side hvis bud er ugyldigt. NO_SLOT/TOO_HEAVY: den side der ikke har plads.
+    public Inventory getBlockedBy() {
+        return blockedBy;
+    }
+
+    // Ændringerne i inventory (en af de to der handlede). Tomme hvis handlen ikke gik igennem.
+    public Changes getChanges(Inventory inventory) {
+        if (outcome != TradeOutcome.COMPLETED) {
+            return Changes.NONE;
+        }
+        return (inventory == first) ? firstChanges : secondChanges;
+    }
+
+    @Override
+    public String toString() {
+        return "TradeResult{outcome=" + outcome + "}";
+    }
+}
@@ -30,7 +30,7 @@ public class Weapon extends Item {
         if (damage < 0) {
             throw new NegativeValues("Damage cannot be negative.");
         }
-        this.damage = damage;
+        change(false, () -> this.damage = damage);
     }
 
     public HandType getHandType() {
@@ -38,7 +38,12 @@ public class Weapon extends Item {
     }
 
     public void setHandType(HandType handType) {
-        this.handType = handType;
+        change(false, () -> this.handType = handType);
+    }
+
+    @Override
+    Weapon copy() {
+        return new Weapon(getName(), getRarity(), getWeight(), damage, handType);
     }
 
     @Override
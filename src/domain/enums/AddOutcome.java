@@ -0,0 +1,10 @@
+package domain.enums;
+
+// Udfald for ét item i Inventory.addItems (batch-tilføjelse).
+public enum AddOutcome {
+    ADDED,      // fik sit eget slot
+    STACKED,    // lagt oven i en consumable-stack (i inventory eller tidligere i samme batch)
+    NO_SLOT,    // ikke flere unlocked slots
+    TOO_HEAVY,  // ville overskride maxWeight
+    INVALID     // null, eller ligger allerede i et inventory
+}
@@ -0,0 +1,9 @@
+package domain.enums;
+
+// Udfald af en handel mellem to inventories (Inventory.trade).
+public enum TradeOutcome {
+    COMPLETED,  // alt er flyttet
+    INVALID,    // et item ligger ikke hos den der giver det, optræder to gange, eller stacken er for lille
+    NO_SLOT,    // modtageren har ikke slots nok
+    TOO_HEAVY   // modtageren ville overskride maxWeight
+}
@@ -0,0 +1,123 @@
+package service;
+
+import domain.InventorySnapshot;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Autosave i baggrunden.
+//
+// En enkelt daemon-tråd kigger med faste mellemrum på versionen af inventory/equipment.
+// Er der sket noget siden sidste save, tages et snapshot (kort, under service-låsen), og
+// selve skrivningen sker på autosave-tråden – konsollen venter aldrig på disken. Mange
+// ændringer inden for et interval bliver derfor til én skrivning.
+//
+// Filen skrives atomisk med backup (<path>.bak). Fejler en save, prøves igen ved næste interval.
+final class Autosave {
+
+    private final InventoryService service;
+    private final String path;
+    private final boolean binary;
+    private final ScheduledExecutorService executor;
+
+    // version der sidst blev gemt (kun autosave-tråden skriver)
+    private long savedVersion = -1;
+
+    // statistik – skrives af autosave-tråden, læses af UI
+    private volatile int saves;
+    private volatile int failures;
+    private volatile long lastNanos;
+    private volatile long maxNanos;
+    private volatile String lastError;
+
+    Autosave(InventoryService service, String path, boolean binary, long intervalMillis) {
+        this.service = service;
+        this.path = path;
+        this.binary = binary;
+
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "autosave");
+            thread.setDaemon(true); // må ikke holde programmet i live
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    // Gemmer med det samme hvis der er ændringer, og venter til det er skrevet.
+    // Kører på autosave-tråden, så den aldrig overlapper en planlagt save.
+    boolean flush() {
+        try {
+            return executor.submit(this::saveIfChanged).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    // Sidste save og stopper tråden
+    boolean close() {
+        boolean ok = flush();
+        executor.shutdown();
+        return ok;
+    }
+
+    String status() {
+        StringBuilder sb = new StringBuilder("Autosave to ").append(path).append(": ")
+                .append(saves).append(" saves");
+
+        if (saves > 0) {
+            sb.append(String.format(", last %.1f ms (max %.1f ms)", lastNanos / 1e6, maxNanos / 1e6));
+        }
+        sb.append(", ").append(failures).append(" failed");
+        if (lastError != null) {
+            sb.append(" (last error: ").append(lastError).append(")");
+        }
+        return sb.toString();
+    }
+
+    // planlagt kørsel – en exception her ville stoppe alle senere autosaves
+    private void tick() {
+        try {
+            saveIfChanged();
+        } catch (RuntimeException e) {
+            failures++;
+            lastError = e.toString();
+        }
+    }
+
+    private boolean saveIfChanged() {
+        // billigt tjek uden lås: intet nyt siden sidst
+        if (service.getVersion() == savedVersion) {
+            return true;
+        }
+
+        long version = service.getVersion();
+        InventorySnapshot snapshot = service.snapshot();
+
+        long start = System.nanoTime();
+        boolean ok = binary
+                ? InventoryFileHandler.saveBinary(snapshot, path, true)
+                : InventoryFileHandler.save(snapshot, path, true);
+        long nanos = System.nanoTime() - start;
+
+        if (ok) {
+            savedVersion = version;
+            saves++;
+            lastNanos = nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            lastError = null;
+        } else {
+            failures++;
+            lastError = "could not write " + path;
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,249 @@
+package service;
+
+import domain.Armour;
+import domain.Consumable;
+import domain.InventorySnapshot;
+import domain.Item;
+import domain.Weapon;
+import domain.enums.ArmourSlot;
+import domain.enums.HandType;
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Kompakt binært save-format, som alternativ til tekstformatet.
+//
+// Layout (big-endian, som DataOutputStream skriver det):
+//   header:   magic "GINV" (4 bytes), version (int)
+//   settings: maxWeight (double), maxSlots (int), unlockedSlots (int)
+//   strenge:  antal (int), derefter for hver: længde i bytes (int) + UTF-8 bytes
+//             (item-navne og effekt-typer – hver tekst gemmes kun én gang)
+//   items:    antal (int), derefter faste records på 24 bytes:
+//             type, rarity, hand/slot (ordinals, 1 byte hver), 1 byte ubrugt,
+//             navn-id (int), effekt-id (int, -1 = ingen), weight (double),
+//             damage/defence/stack (int)
+//   checksum: CRC32 (int) af alt efter header (fra version 2)
+//
+// Passer checksummen, loades items med den hurtige Inventory.restoreItems. Passer den ikke,
+// er filen beskadiget og afvises. Version 1-filer (uden checksum) loades med fuld validering.
+//
+// Enums gemmes som ordinals, så versionen skal hæves hvis rækkefølgen i en enum ændres.
+final class InventoryBinaryFormat {
+
+    static final byte[] MAGIC = {'G', 'I', 'N', 'V'};
+    static final int VERSION = 2;
+
+    private static final int NO_STRING = -1;
+    private static final int HEADER_BYTES = 4 + 4;        // magic + version
+    private static final int SETTINGS_BYTES = 8 + 4 + 4;  // maxWeight, maxSlots, unlockedSlots
+    private static final int ITEM_BYTES = 24;
+
+    private InventoryBinaryFormat() { }
+
+    // Første 4 bytes af filen afgør om den er binær (ellers tekstformat)
+    static boolean hasMagic(InputStream in) throws IOException {
+        byte[] head = in.readNBytes(MAGIC.length);
+        if (head.length != MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    // Skriver til kanalen (som lukkes af kalderen, så den kan fsync'es bagefter)
+    static void write(InventorySnapshot snapshot, WritableByteChannel channel) throws IOException {
+        write(snapshot.getMaxWeight(), snapshot.getMaxSlots(), snapshot.getUnlockedSlots(),
+                snapshot.getItems(), channel);
+    }
+
+    private static void write(double maxWeight, int maxSlots, int unlockedSlots, List<Item> items,
+                              WritableByteChannel channel) throws IOException {
+
+        // --- string-tabel: hver tekst får et id første gang den ses ---
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] nameIds = new int[items.size()];
+        int[] effectIds = new int[items.size()];
+
+        // items gennemløbes med iterator – snapshot-listen har ikke O(1) get(i)
+        int i = 0;
+        for (Item item : items) {
+            nameIds[i] = stringId(item.getName(), ids, strings);
+            effectIds[i] = (item instanceof Consumable c) ? stringId(c.getEffectType(), ids, strings) : NO_STRING;
+            i++;
+        }
+
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        checked.getChecksum().reset(); // checksummen dækker alt efter header
+
+        out.writeDouble(maxWeight);
+        out.writeInt(maxSlots);
+        out.writeInt(unlockedSlots);
+
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        out.writeInt(items.size());
+        i = 0;
+        for (Item item : items) {
+            out.writeByte(item.getType().ordinal());
+            out.writeByte(item.getRarity().ordinal());
+            out.writeByte(extraOrdinal(item));
+            out.writeByte(0);
+            out.writeInt(nameIds[i]);
+            out.writeInt(effectIds[i]);
+            out.writeDouble(item.getWeight());
+            out.writeInt(stat(item));
+            i++;
+        }
+        out.writeInt((int) checked.getChecksum().getValue());
+        out.flush(); // ikke close() – det ville lukke kanalen
+    }
+
+    // Læser en binær fil. Kaster IOException/IllegalArgumentException ved defekt fil,
+    // og domain kan kaste NegativeValues – kalderen (InventoryFileHandler) oversætter til false.
+    // Antal og længder i filen tjekkes mod de bytes der er tilbage, før der allokeres efter dem.
+    static Loaded read(String path) throws IOException {
+        FileInputStream file = new FileInputStream(path);
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(file, 1 << 16), new CRC32());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            long remaining = file.getChannel().size() - HEADER_BYTES - SETTINGS_BYTES;
+
+            if (!hasMagic(in)) {
+                throw new IllegalArgumentException("Not a binary inventory file");
+            }
+            int version = in.readInt();
+            if (version != 1 && version != VERSION) {
+                throw new IllegalArgumentException("Unsupported binary version: " + version);
+            }
+            checked.getChecksum().reset();
+
+            double maxWeight = in.readDouble();
+            int maxSlots = in.readInt();
+            int unlockedSlots = in.readInt();
+
+            int stringCount = in.readInt();
+            remaining -= 4;
+            checkCount("string count", stringCount, 4, remaining);
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < strings.length; i++) {
+                int length = in.readInt();
+                remaining -= 4;
+                checkCount("string length", length, 1, remaining);
+                strings[i] = new String(in.readNBytes(length), StandardCharsets.UTF_8);
+                remaining -= length;
+            }
+
+            int count = in.readInt();
+            remaining -= 4;
+            checkCount("item count", count, ITEM_BYTES, remaining);
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ItemType type = ordinal(ItemType.values(), in.readByte());
+                Rarity rarity = ordinal(Rarity.values(), in.readByte());
+                byte extra = in.readByte();
+                in.readByte(); // ubrugt
+                String name = string(strings, in.readInt());
+                String effect = string(strings, in.readInt());
+                double weight = in.readDouble();
+                int stat = in.readInt();
+
+                items.add(switch (type) {
+                    case WEAPON -> new Weapon(name, rarity, weight, stat, ordinal(HandType.values(), extra));
+                    case ARMOUR -> new Armour(name, rarity, weight, stat, ordinal(ArmourSlot.values(), extra));
+                    case CONSUMABLE -> {
+                        Consumable c = new Consumable(name, rarity, weight, stat);
+                        if (effect != null && !effect.isBlank()) c.setEffectType(effect);
+                        yield c;
+                    }
+                });
+            }
+
+            boolean trusted = false;
+            if (version >= 2) {
+                int actual = (int) checked.getChecksum().getValue();
+                if (in.readInt() != actual) {
+                    throw new IOException("Checksum mismatch in " + path);
+                }
+                trusted = true;
+            }
+
+            return new Loaded(maxWeight, maxSlots, unlockedSlots, items, trusted);
+        }
+    }
+
+    // Det der blev læst fra en binær fil (trusted = checksummen er tjekket)
+    record Loaded(double maxWeight, int maxSlots, int unlockedSlots, List<Item> items, boolean trusted) { }
+
+    // Et antal/en længde fra filen skal kunne være i resten af filen (bytesEach pr. stk.).
+    // Ellers er filen defekt, og en stor værdi ville give et kæmpe array (OutOfMemoryError).
+    private static void checkCount(String what, int count, int bytesEach, long remaining) {
+        if (count < 0 || (long) count * bytesEach > remaining) {
+            throw new IllegalArgumentException("Corrupt binary file: " + what + " " + count
+                    + " does not fit in the remaining " + remaining + " bytes");
+        }
+    }
+
+    private static int stringId(String s, Map<String, Integer> ids, List<String> strings) {
+        if (s == null) return NO_STRING;
+        return ids.computeIfAbsent(s, k -> {
+            strings.add(k);
+            return strings.size() - 1;
+        });
+    }
+
+    private static String string(String[] strings, int id) {
+        if (id == NO_STRING) return null;
+        if (id < 0 || id >= strings.length) {
+            throw new IllegalArgumentException("Invalid string id: " + id);
+        }
+        return strings[id];
+    }
+
+    private static <E> E ordinal(E[] values, int ordinal) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Invalid enum ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static int extraOrdinal(Item item) {
+        if (item instanceof Weapon w) return w.getHandType().ordinal();
+        if (item instanceof Armour a) return a.getSlot().ordinal();
+        return 0;
+    }
+
+    private static int stat(Item item) {
+        if (item instanceof Weapon w) return w.getDamage();
+        if (item instanceof Armour a) return a.getDefence();
+        if (item instanceof Consumable c) return c.getStackSize();
+        return 0;
+    }
+}
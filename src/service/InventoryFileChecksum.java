@@ -0,0 +1,91 @@
+package service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+// Checksum-headeren i tekstformatet: første linje "# checksum=xxxxxxxx" er CRC32 (8 hex-cifre)
+// af alle bytes efter linjen. Passer den, er filen skrevet af vores egen save og ikke ændret
+// siden, så load kan bruge den hurtige Inventory.restoreItems. Filer uden header (ældre saves
+// eller håndskrevne) og filer hvor den ikke passer, loades som før med fuld validering.
+final class InventoryFileChecksum {
+
+    static final String PREFIX = "# checksum=";
+
+    // længste header-linje: prefix + 8 cifre + \r\n
+    private static final int MAX_HEADER = PREFIX.length() + 8 + 2;
+
+    private InventoryFileChecksum() { }
+
+    static String hex(long crc) {
+        String digits = Long.toHexString(crc);
+        return "00000000".substring(digits.length()) + digits;
+    }
+
+    // Læser header-linjen fra starten af in (som skal understøtte mark/reset).
+    // Returnerer den forventede checksum, eller -1 hvis der ingen header er – så er in spolet tilbage.
+    static long readHeader(InputStream in) throws IOException {
+        in.mark(MAX_HEADER);
+        byte[] head = in.readNBytes(MAX_HEADER);
+        long[] parsed = parse(head, head.length);
+
+        in.reset();
+        if (parsed == null) {
+            return -1;
+        }
+        in.skipNBytes(parsed[1]);
+        return parsed[0];
+    }
+
+    // Som readHeader, men direkte fra en FileChannel: {checksum, header-længde} eller null
+    static long[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(MAX_HEADER);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // læs til bufferen er fuld eller filen slutter
+        }
+        return parse(head.array(), head.position());
+    }
+
+    // CRC32 af filen fra position from og til slutningen
+    static long checksum(FileChannel channel, long from) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+        long pos = from;
+        int read;
+        while ((read = channel.read(buf, pos)) > 0) {
+            pos += read;
+            buf.flip();
+            crc.update(buf);
+            buf.clear();
+        }
+        return crc.getValue();
+    }
+
+    // {checksum, antal bytes i header-linjen} eller null hvis head ikke starter med en gyldig header
+    private static long[] parse(byte[] head, int length) {
+        int digitsEnd = PREFIX.length() + 8;
+        if (length < digitsEnd + 1) {
+            return null;
+        }
+        for (int i = 0; i < PREFIX.length(); i++) {
+            if (head[i] != PREFIX.charAt(i)) return null;
+        }
+
+        long value = 0;
+        for (int i = PREFIX.length(); i < digitsEnd; i++) {
+            int digit = Character.digit(head[i], 16);
+            if (digit < 0) return null;
+            value = (value << 4) | digit;
+        }
+
+        if (head[digitsEnd] == '\n') {
+            return new long[]{value, digitsEnd + 1};
+        }
+        if (head[digitsEnd] == '\r' && length > digitsEnd + 1 && head[digitsEnd + 1] == '\n') {
+            return new long[]{value, digitsEnd + 2};
+        }
+        return null;
+    }
+}
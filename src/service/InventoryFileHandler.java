@@ -1,211 +1,409 @@
 package service;
 
 import domain.*;
-import domain.enums.ArmourSlot;
-import domain.enums.HandType;
-import domain.enums.ItemType;
-import domain.enums.Rarity;
 
-import exceptions.MaxWeightReached;
 import exceptions.NegativeValues;
 
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 // Håndterer gemning og indlæsning af inventory til/fra tekstfil i et simpelt custom format.
 // DAL-lag: laver kun fil-I/O og parsing. UI kalder service, service kalder DAL.
 public class InventoryFileHandler {
 
-    // Gemmer hele inventory-tilstanden til en tekstfil
+    // endelse på backup-filen (den forrige save), når backup er slået til
+    public static final String BACKUP_SUFFIX = ".bak";
+
+    // Gemmer hele inventory-tilstanden til en tekstfil.
+    // Skrives som UTF-8 gennem én stor buffer direkte til en FileChannel (se InventoryFileWriter).
+    // Der gemmes altid fra et snapshot (O(1) at tage), så inventory kan ændres videre imens.
     public static boolean save(Inventory inventory, String path) {
+        return save(inventory, path, false);
+    }
+
+    // Som save(), men gemmer evt. den forrige fil som <path>.bak
+    public static boolean save(Inventory inventory, String path, boolean keepBackup) {
         // DAL-ansvar: håndterer fil-I/O.
         // UI/service skal kun se success/fail (boolean).
-        try (PrintWriter writer = new PrintWriter(new FileWriter(path))) {
-
-            // --- FASE 1: metadata om inventory (settings) ---
-            writer.println("# Inventory settings");
-            writer.println("maxWeight=" + inventory.getMaxWeight());
-            writer.println("maxSlots=" + inventory.getMaxSlots());
-            writer.println("unlockedSlots=" + inventory.getUnlockedSlots());
-            writer.println();
-
-            // --- FASE 2: items (Weapon/Armour/Consumable) ---
-            writer.println("# Items");
-            for (Item item : inventory.getItems()) {
-
-                if (item instanceof Weapon w) {
-                    writer.println("WEAPON;name=" + w.getName()
-                            + ";rarity=" + w.getRarity()
-                            + ";weight=" + w.getWeight()
-                            + ";damage=" + w.getDamage()
-                            + ";hand=" + w.getHandType());
-
-                } else if (item instanceof Armour a) {
-                    writer.println("ARMOUR;name=" + a.getName()
-                            + ";rarity=" + a.getRarity()
-                            + ";weight=" + a.getWeight()
-                            + ";defence=" + a.getDefence()
-                            + ";slot=" + a.getSlot());
-
-                } else if (item instanceof Consumable c) {
-                    // Undgå at skrive "null" som effekt i filen (giver bøvl ved load)
-                    String effect = (c.getEffectType() == null) ? "" : c.getEffectType();
-
-                    writer.println("CONSUMABLE;name=" + c.getName()
-                            + ";rarity=" + c.getRarity()
-                            + ";weight=" + c.getWeight()
-                            + ";effect=" + effect
-                            + ";stack=" + c.getStackSize());
-                }
+        return save(inventory.snapshot(), path, keepBackup);
+    }
+
+    // Gemmer i det kompakte binære format (se InventoryBinaryFormat).
+    // load() genkender selv formatet, så der er ingen separat loadBinary.
+    public static boolean saveBinary(Inventory inventory, String path) {
+        return saveBinary(inventory, path, false);
+    }
+
+    public static boolean saveBinary(Inventory inventory, String path, boolean keepBackup) {
+        return saveBinary(inventory.snapshot(), path, keepBackup);
+    }
+
+    // Gemmer et snapshot (fx fra autosave-tråden) – samme filformater og atomiske skrivning
+    public static boolean save(InventorySnapshot snapshot, String path, boolean keepBackup) {
+        return writeAtomically(path, keepBackup, channel -> new InventoryFileWriter(channel).write(snapshot));
+    }
+
+    public static boolean saveBinary(InventorySnapshot snapshot, String path, boolean keepBackup) {
+        return writeAtomically(path, keepBackup, channel -> InventoryBinaryFormat.write(snapshot, channel));
+    }
+
+    // Lille tekstfil (fx journalens BASE-linje) med samme atomiske, fsync'ede skrivning som save
+    static boolean writeText(String path, String text) {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        return writeAtomically(path, false, channel -> {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
             }
+        });
+    }
+
+    // Skriver til en midlertidig fil ved siden af målet, fsync'er den og flytter den atomisk over
+    // målet. Går noget galt undervejs (crash, IOException, fuld disk), er den gamle fil urørt,
+    // og læsere ser aldrig en halvt skrevet fil.
+    private static boolean writeAtomically(String path, boolean keepBackup, ChannelWriter writer) {
+        Path temp = null;
+        try {
+            Path target = Path.of(path).toAbsolutePath();
+            temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writer.write(channel);
+                channel.force(true); // data skal ligge på disken før rename
+            }
+
+            if (keepBackup && Files.exists(target)) {
+                backup(target);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // fx andet filsystem – bedste alternativ er almindelig replace
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
 
+            syncDirectory(target.getParent());
             return true;
 
-        } catch (IOException e) {
+        } catch (IOException | InvalidPathException e) {
             // fx invalid path / manglende rettigheder / write-fejl
             return false;
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // temp-filen er kun affald – den gamle save er stadig intakt
+                }
+            }
         }
     }
 
-    // Læser inventory-tilstand ind fra fil (overskriver nuværende indhold)
-    public static boolean load(Inventory inventory, String path) {
-
-        // DAL-ansvar: filen kan mangle eller være defekt.
-        // Vi returnerer false i stedet for at crashe.
-        try (Scanner scanner = new Scanner(new File(path))) {
+    // Roterer den nuværende fil til <path>.bak. Et hard link undgår at kopiere data, og målet
+    // findes hele tiden (ingen periode uden save-fil). Kan filsystemet ikke, kopieres filen.
+    private static void backup(Path target) throws IOException {
+        Path backup = target.resolveSibling(target.getFileName() + BACKUP_SUFFIX);
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, target);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(target, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 
-            // --- FASE 1: start clean ---
-            inventory.clearItems();
+    // Sørger for at selve rename'et er på disken. Virker ikke på alle platforme (fx Windows),
+    // og så nøjes vi med at filen er skrevet.
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // ikke understøttet – ikke en fejl ved selve save
+        }
+    }
 
-            // --- FASE 2: læs filen linje for linje ---
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
+    // Skriver filens indhold til kanalen (tekst eller binært)
+    @FunctionalInterface
+    private interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
 
-                // ignorer tomme linjer og kommentarer
-                if (line.isEmpty() || line.startsWith("#")) {
-                    continue;
-                }
+    // Læser inventory-tilstand ind fra fil (overskriver nuværende indhold).
+    // Både tekst- og binært format understøttes – binære filer genkendes på de første bytes.
+    // Transaktionel: filen læses ind i et nyt inventory ved siden af, og først når alt er gyldigt
+    // overtager inventory indholdet. Fejler load, er inventory (inkl. settings) helt urørt.
+    public static boolean load(Inventory inventory, String path) {
+        return replace(inventory, read(path, inventory));
+    }
 
-                // --- FASE 3: metadata-linjer ---
-                if (line.startsWith("maxWeight=")) {
-                    inventory.setMaxWeight(Double.parseDouble(line.split("=", 2)[1]));
-                    continue;
-                }
-                if (line.startsWith("maxSlots=")) {
-                    inventory.setMaxSlots(Integer.parseInt(line.split("=", 2)[1]));
-                    continue;
-                }
-                if (line.startsWith("unlockedSlots=")) {
-                    inventory.setUnlockedSlots(Integer.parseInt(line.split("=", 2)[1]));
-                    continue;
-                }
+    // Som load(), men med parallel parsing af store tekstfiler (se readParallel)
+    public static boolean loadParallel(Inventory inventory, String path) {
+        return replace(inventory, readParallel(path, inventory));
+    }
 
-                // --- FASE 4: item-linje ---
-                // Format: TYPE;key=value;key=value;...
-                String[] parts = line.split(";");
-                if (parts.length == 0) continue;
+    // Læser en save-fil ind i et NYT inventory. Settings der ikke står i filen, arves fra template
+    // (som også bestemmer om kolonne-lager er slået til). Returnerer null hvis filen mangler,
+    // er defekt eller items ikke kan være der – template røres ikke.
+    public static Inventory read(String path, Inventory template) {
 
-                ItemType type = ItemType.valueOf(normalizeEnum(parts[0]));
+        if (isBinary(path)) {
+            return readBinary(path, template);
+        }
 
-                // --- FASE 5: parse key=value felter ---
-                Map<String, String> map = parseKeyValuePairs(parts);
+        // DAL-ansvar: filen kan mangle eller være defekt.
+        // Vi returnerer null i stedet for at crashe.
+        try (InputStream raw = new BufferedInputStream(new FileInputStream(path), 1 << 16)) {
 
-                Rarity rarity = Rarity.valueOf(normalizeEnum(map.get("rarity")));
+            // checksum-header (se InventoryFileChecksum) – resten af filen checksummes mens den parses
+            long expected = InventoryFileChecksum.readHeader(raw);
+            CheckedInputStream in = new CheckedInputStream(raw, new CRC32());
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
 
-                // --- FASE 6: opret item og tilføj til inventory ---
-                // Domain kan kaste exceptions ved oprettelse eller addItem
-                try {
-                    switch (type) {
-                        case WEAPON -> {
-                            HandType handType =
-                                    HandType.valueOf(normalizeEnum(map.getOrDefault("hand", "ONE_HAND")));
-                            Weapon w = new Weapon(
-                                    map.get("name"),
-                                    rarity,
-                                    Double.parseDouble(map.get("weight")),
-                                    Integer.parseInt(map.get("damage")),
-                                    handType
-                            );
-                            inventory.addItem(w);
-                        }
-                        case ARMOUR -> {
-                            ArmourSlot slot =
-                                    ArmourSlot.valueOf(normalizeEnum(map.get("slot")));
-                            Armour a = new Armour(
-                                    map.get("name"),
-                                    rarity,
-                                    Double.parseDouble(map.get("weight")),
-                                    Integer.parseInt(map.get("defence")),
-                                    slot
-                            );
-                            inventory.addItem(a);
-                        }
-                        case CONSUMABLE -> {
-                            Consumable c = new Consumable(
-                                    map.get("name"),
-                                    rarity,
-                                    Double.parseDouble(map.get("weight")),
-                                    Integer.parseInt(map.get("stack"))
-                            );
-
-                            String effect = map.get("effect");
-                            if (effect != null && !effect.isBlank()) {
-                                c.setEffectType(effect);
-                            }
-
-                            inventory.addItem(c);
-                        }
-                    }
-                } catch (NegativeValues | MaxWeightReached e) {
-                    // Filindhold bryder domain-regler
-                    return false;
-                }
-            }
+            // --- FASE 1: parse hele filen (streaming, se InventoryFileParser) ---
+            // Domain kan kaste exceptions ved oprettelse af items
+            InventoryFileParser parser = new InventoryFileParser();
+            parser.parse(reader);
 
-            return true;
+            // --- FASE 2: byg det nye inventory (metadata + items, alt-eller-intet) ---
+            boolean trusted = expected >= 0 && in.getChecksum().getValue() == expected;
+            return build(template, parser.maxWeight, parser.maxSlots, parser.unlockedSlots, parser.items, trusted);
 
         } catch (FileNotFoundException e) {
             // Filen findes ikke / forkert path
-            return false;
+            return null;
+        } catch (IOException e) {
+            // Læsefejl undervejs
+            return null;
+        } catch (NegativeValues e) {
+            // Filindhold bryder domain-regler
+            return null;
         } catch (IllegalArgumentException e) {
             // Defekt filformat eller enum-parsing
-            return false;
+            return null;
         } catch (RuntimeException e) {
             // Sikkerhedsnet: uventede parsing-fejl
+            return null;
+        }
+    }
+
+    // Alternativ read til store filer (fx bulk-import på en server).
+    // Filen memory-mappes og deles i bidder der starter/slutter ved linjeskift. Bidderne parses
+    // parallelt (fork-join), og resultaterne flettes i fil-rækkefølge, så stacking af consumables
+    // bliver præcis som ved almindelig read. Resultat og fejlhåndtering er som read().
+    public static Inventory readParallel(String path, Inventory template) {
+        if (isBinary(path)) {
+            return readBinary(path, template);
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+
+            // --- FASE 1: del filen op ved linjeskift ---
+            long[] bounds = chunkBounds(channel);
+
+            // --- FASE 2: parse bidderne parallelt (listen beholder fil-rækkefølgen) ---
+            List<InventoryFileParser> parts = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1]))
+                    .toList();
+
+            InventoryFileParser parser = new InventoryFileParser();
+            for (InventoryFileParser part : parts) {
+                parser.append(part);
+            }
+
+            // --- FASE 3: som read(): checksum, metadata og items i én batch ---
+            long[] header = InventoryFileChecksum.readHeader(channel);
+            boolean trusted = header != null
+                    && InventoryFileChecksum.checksum(channel, header[1]) == header[0];
+            return build(template, parser.maxWeight, parser.maxSlots, parser.unlockedSlots, parser.items, trusted);
+
+        } catch (IOException | UncheckedIOException e) {
+            // Filen findes ikke / læsefejl
+            return null;
+        } catch (RuntimeException e) {
+            // Defekt filformat, enum-parsing eller domain-regler (NegativeValues)
+            return null;
+        }
+    }
+
+    private static Inventory readBinary(String path, Inventory template) {
+        try {
+            InventoryBinaryFormat.Loaded loaded = InventoryBinaryFormat.read(path);
+            return build(template, loaded.maxWeight(), loaded.maxSlots(), loaded.unlockedSlots(),
+                    loaded.items(), loaded.trusted());
+        } catch (IOException e) {
+            // fil mangler, læsefejl eller filen slutter for tidligt
+            return null;
+        } catch (RuntimeException e) {
+            // ugyldig version/ordinal eller domain-regler (NegativeValues)
+            return null;
+        }
+    }
+
+    private static boolean isBinary(String path) {
+        try (InputStream in = new FileInputStream(path)) {
+            return InventoryBinaryFormat.hasMagic(in);
+        } catch (IOException e) {
+            return false; // read() melder selv fejlen
+        }
+    }
+
+    // Fælles sidste trin for alle read-varianter: nyt inventory med templates settings, metadata
+    // fra filen (null = ikke i filen) og items i én batch. Passer de ikke (vægt/slots), er
+    // resultatet null. Domain kan kaste NegativeValues for ugyldige settings.
+    // trusted = filen er skrevet af vores save og uændret (checksum passer): så lægges items
+    // direkte i slots med ét samlet vægt-/slot-tjek i stedet for den fulde batch-validering.
+    private static Inventory build(Inventory template, Double maxWeight, Integer maxSlots,
+                                   Integer unlockedSlots, List<Item> items, boolean trusted) {
+        Inventory fresh = new Inventory(template.getMaxWeight(), template.getMaxSlots(), template.getUnlockedSlots());
+        if (template.isColumnarStorage()) fresh.enableColumnarStorage();
+
+        if (maxWeight != null) fresh.setMaxWeight(maxWeight);
+        if (maxSlots != null) fresh.setMaxSlots(maxSlots);
+        if (unlockedSlots != null) fresh.setUnlockedSlots(unlockedSlots);
+
+        boolean ok = trusted ? fresh.restoreItems(items) : fresh.addItems(items).isApplied();
+        return ok ? fresh : null;
+    }
+
+    private static boolean replace(Inventory inventory, Inventory loaded) {
+        if (loaded == null) {
             return false;
         }
+        inventory.replaceWith(loaded);
+        return true;
     }
 
-    // Parser en item-linje af typen: TYPE;key=value;key=value;...
-    // Returnerer key/value felterne som Map, så load() forbliver letlæselig.
-    private static Map<String, String> parseKeyValuePairs(String[] parts) {
-        Map<String, String> map = new HashMap<>();
-        for (int i = 1; i < parts.length; i++) {
+    // --- equipment ---
+    // Egen lille tekstfil: "slot=" + almindelig item-linje pr. besat slot (se InventoryFileWriter).
 
-            String part = parts[i];
-            int eq = part.indexOf('=');
-            if (eq < 0) continue;
+    public static boolean saveEquipment(Equipment equipment, String path) {
+        return writeAtomically(path, false, channel -> new InventoryFileWriter(channel).write(equipment));
+    }
+
+    // Læser en equipment-fil ind i et NYT Equipment. null hvis filen mangler eller er defekt
+    // (ukendt slot, item der ikke passer til slottet, ugyldig item-linje).
+    public static Equipment readEquipment(String path) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+
+            Equipment equipment = new Equipment();
+            InventoryFileParser parser = new InventoryFileParser();
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (eq < 0) {
+                    return null;
+                }
+                String slot = line.substring(0, eq).trim();
+                char[] chars = line.toCharArray();
+
+                int before = parser.items.size();
+                parser.parseLine(chars, eq + 1, chars.length);
+                if (parser.items.size() != before + 1) {
+                    return null;
+                }
+                if (!fitsSlot(slot, parser.items.get(before))) {
+                    return null;
+                }
+                equipment.restoreToSlot(slot, parser.items.get(before));
+            }
+            return equipment;
+
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // ugyldig item-linje eller domain-regler (NegativeValues)
+            return null;
+        }
+    }
 
-            String key = part.substring(0, eq).trim();
-            String value = part.substring(eq + 1).trim();
+    // Våben i hænderne, rustning kun i sit eget slot
+    private static boolean fitsSlot(String slot, Item item) {
+        return switch (slot) {
+            case "mainhand", "offhand" -> item instanceof Weapon;
+            case "head", "chest", "legs", "feet" ->
+                    item instanceof Armour a && a.getSlot().name().equalsIgnoreCase(slot);
+            default -> false;
+        };
+    }
 
-            map.put(key, value);
+    // mindste bid pr. tråd – mindre filer parses bare i én bid
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+
+    // Finder start/slut for hver bid. Hver grænse flyttes frem til lige efter næste '\n',
+    // så ingen linje (og intet UTF-8 tegn) bliver delt.
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunks = (int) Math.max(1, Math.min(
+                ForkJoinPool.getCommonPoolParallelism() * 4L, size / MIN_CHUNK_BYTES));
+
+        long[] bounds = new long[chunks + 1];
+        bounds[chunks] = size;
+        for (int i = 1; i < chunks; i++) {
+            long start = Math.max(bounds[i - 1], size * i / chunks);
+            bounds[i] = nextLineStart(channel, start, size);
         }
-        return map;
+        return bounds;
     }
 
-    // Gør enum-parsing tolerant: "Common" -> "COMMON", "two hand" -> "TWO_HAND"
-    private static String normalizeEnum(String text) {
-        if (text == null) return "";
-        return text.trim()
-                .replace("-", "_")
-                .replace(" ", "_")
-                .toUpperCase();
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static InventoryFileParser parseChunk(FileChannel channel, long from, long to) {
+        InventoryFileParser parser = new InventoryFileParser();
+        if (to <= from) {
+            return parser;
+        }
+
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+            int start = chars.arrayOffset() + chars.position();
+            parser.parse(chars.array(), start, start + chars.remaining());
+            return parser;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,369 @@
+package service;
+
+import domain.Armour;
+import domain.Consumable;
+import domain.Item;
+import domain.Weapon;
+import domain.enums.ArmourSlot;
+import domain.enums.HandType;
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Streaming-parser til inventory-tekstformatet (se InventoryFileHandler.save).
+// Læser linjer ind i én genbrugt char-buffer og parser felterne direkte i bufferen:
+// ingen split(), ingen HashMap pr. linje, enums slås op i faste tabeller og tal parses
+// uden substring. Kun navn og effekt bliver til nye Strings (de skal jo gemmes på item).
+//
+// Samme regler som den gamle parser: tomme linjer og "#" ignoreres, enums er tolerante
+// ("two hand" -> TWO_HAND), og en defekt linje giver IllegalArgumentException.
+final class InventoryFileParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // metadata (null hvis linjen ikke findes i filen)
+    Double maxWeight;
+    Integer maxSlots;
+    Integer unlockedSlots;
+
+    final List<Item> items = new ArrayList<>();
+
+    // felter fra den aktuelle item-linje (start/slut-index i bufferen, -1 = mangler)
+    private int nameStart, nameEnd, rarityStart, rarityEnd, weightStart, weightEnd;
+    private int statStart, statEnd, extraStart, extraEnd;
+
+    // --- enum-opslag (tabeller bygges én gang) ---
+
+    private static final ItemType[] TYPES = ItemType.values();
+    private static final char[][] TYPE_NAMES = namesOf(TYPES);
+    private static final Rarity[] RARITIES = Rarity.values();
+    private static final char[][] RARITY_NAMES = namesOf(RARITIES);
+    private static final HandType[] HANDS = HandType.values();
+    private static final char[][] HAND_NAMES = namesOf(HANDS);
+    private static final ArmourSlot[] SLOTS = ArmourSlot.values();
+    private static final char[][] SLOT_NAMES = namesOf(SLOTS);
+
+    // Læser hele input linje for linje. Bufferen vokser kun hvis en linje er længere end den.
+    void parse(Reader reader) throws IOException {
+        char[] buf = new char[BUFFER_SIZE];
+        int end = 0; // antal gyldige tegn i bufferen (en ufærdig linje står altid forrest)
+
+        while (true) {
+            int read = reader.read(buf, end, buf.length - end);
+            if (read < 0) break;
+
+            // parse alle hele linjer (kun de nye tegn skal scannes for linjeskift)
+            int lineStart = 0;
+            for (int i = end; i < end + read; i++) {
+                char ch = buf[i];
+                if (ch == '\n' || ch == '\r') {
+                    parseLine(buf, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            end += read;
+
+            // flyt den ufærdige linje forrest (eller gør plads til en meget lang linje)
+            int rest = end - lineStart;
+            if (lineStart == 0 && rest == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            } else if (lineStart > 0) {
+                System.arraycopy(buf, lineStart, buf, 0, rest);
+            }
+            end = rest;
+        }
+
+        // sidste linje uden linjeskift
+        parseLine(buf, 0, end);
+    }
+
+    // Parser alle linjer i buf[from, to) – bruges til en hel chunk ved parallel load.
+    void parse(char[] buf, int from, int to) {
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            char ch = buf[i];
+            if (ch == '\n' || ch == '\r') {
+                parseLine(buf, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        parseLine(buf, lineStart, to);
+    }
+
+    // Lægger en senere chunks resultat til dette (chunks flettes i fil-rækkefølge)
+    void append(InventoryFileParser later) {
+        if (later.maxWeight != null) maxWeight = later.maxWeight;
+        if (later.maxSlots != null) maxSlots = later.maxSlots;
+        if (later.unlockedSlots != null) unlockedSlots = later.unlockedSlots;
+        items.addAll(later.items);
+    }
+
+    // Parser én linje: buf[from, to).
+    void parseLine(char[] buf, int from, int to) {
+        // trim
+        while (from < to && buf[from] <= ' ') from++;
+        while (to > from && buf[to - 1] <= ' ') to--;
+
+        // ignorer tomme linjer og kommentarer
+        if (from == to || buf[from] == '#') {
+            return;
+        }
+
+        // metadata-linjer
+        if (startsWith(buf, from, to, "maxWeight=")) {
+            maxWeight = parseDouble(buf, from + 10, to);
+            return;
+        }
+        if (startsWith(buf, from, to, "maxSlots=")) {
+            maxSlots = parseInt(buf, from + 9, to);
+            return;
+        }
+        if (startsWith(buf, from, to, "unlockedSlots=")) {
+            unlockedSlots = parseInt(buf, from + 14, to);
+            return;
+        }
+
+        // item-linje: TYPE;key=value;key=value;...
+        int sep = separator(buf, from, to);
+        ItemType type = lookup(buf, from, sep, TYPES, TYPE_NAMES);
+
+        nameStart = rarityStart = weightStart = statStart = extraStart = -1;
+        nameEnd = rarityEnd = weightEnd = statEnd = extraEnd = -1;
+
+        int pos = sep;
+        while (pos < to) {
+            int partStart = pos + 1;
+            int partEnd = separator(buf, partStart, to);
+            int eq = indexOf(buf, partStart, partEnd, '=');
+            if (eq < partEnd) {
+                readField(type, buf, partStart, eq, eq + 1, partEnd);
+            }
+            pos = partEnd;
+        }
+
+        items.add(createItem(type, buf));
+    }
+
+    // Husker hvor værdien for en kendt nøgle står (sidste forekomst vinder, som i det gamle Map)
+    private void readField(ItemType type, char[] buf, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        // trim key og value
+        while (keyStart < keyEnd && buf[keyStart] <= ' ') keyStart++;
+        while (keyEnd > keyStart && buf[keyEnd - 1] <= ' ') keyEnd--;
+        while (valueStart < valueEnd && buf[valueStart] <= ' ') valueStart++;
+        while (valueEnd > valueStart && buf[valueEnd - 1] <= ' ') valueEnd--;
+
+        if (equals(buf, keyStart, keyEnd, "name")) {
+            nameStart = valueStart; nameEnd = valueEnd;
+        } else if (equals(buf, keyStart, keyEnd, "rarity")) {
+            rarityStart = valueStart; rarityEnd = valueEnd;
+        } else if (equals(buf, keyStart, keyEnd, "weight")) {
+            weightStart = valueStart; weightEnd = valueEnd;
+        } else if (equals(buf, keyStart, keyEnd, statKey(type))) {
+            statStart = valueStart; statEnd = valueEnd;
+        } else if (equals(buf, keyStart, keyEnd, extraKey(type))) {
+            extraStart = valueStart; extraEnd = valueEnd;
+        }
+        // ukendte nøgler ignoreres
+    }
+
+    private static String statKey(ItemType type) {
+        return switch (type) {
+            case WEAPON -> "damage";
+            case ARMOUR -> "defence";
+            case CONSUMABLE -> "stack";
+        };
+    }
+
+    private static String extraKey(ItemType type) {
+        return switch (type) {
+            case WEAPON -> "hand";
+            case ARMOUR -> "slot";
+            case CONSUMABLE -> "effect";
+        };
+    }
+
+    private Item createItem(ItemType type, char[] buf) {
+        Rarity rarity = lookup(buf, rarityStart, rarityEnd, RARITIES, RARITY_NAMES);
+        String name = (nameStart < 0) ? null : text(buf, nameStart, nameEnd);
+        double weight = parseDouble(buf, weightStart, weightEnd);
+        int stat = parseInt(buf, statStart, statEnd);
+
+        return switch (type) {
+            case WEAPON -> {
+                // manglende hand -> ONE_HAND (som før)
+                HandType hand = (extraStart < 0)
+                        ? HandType.ONE_HAND
+                        : lookup(buf, extraStart, extraEnd, HANDS, HAND_NAMES);
+                yield new Weapon(name, rarity, weight, stat, hand);
+            }
+            case ARMOUR -> new Armour(name, rarity, weight, stat,
+                    lookup(buf, extraStart, extraEnd, SLOTS, SLOT_NAMES));
+            case CONSUMABLE -> {
+                Consumable c = new Consumable(name, rarity, weight, stat);
+                if (extraStart >= 0 && extraEnd > extraStart) {
+                    c.setEffectType(text(buf, extraStart, extraEnd));
+                }
+                yield c;
+            }
+        };
+    }
+
+    // --- hjælpere der arbejder direkte i bufferen ---
+
+    private static int indexOf(char[] buf, int from, int to, char ch) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == ch) return i;
+        }
+        return to;
+    }
+
+    // Næste ';' der ikke er escaped med '\\'
+    private static int separator(char[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\\') i++;
+            else if (buf[i] == ';') return i;
+        }
+        return to;
+    }
+
+    // Navn/effekt med escapes fra InventoryFileWriter.text fjernet. Ukendte escapes beholdes som de står,
+    // så gamle filer med '\\' i et navn læses som før.
+    static String text(char[] buf, int from, int to) {
+        if (indexOf(buf, from, to, '\\') == to) {
+            return new String(buf, from, to - from);
+        }
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char ch = buf[i];
+            if (ch == '\\' && i + 1 < to) {
+                char next = buf[i + 1];
+                if (next == '\\' || next == ';') { sb.append(next); i++; continue; }
+                if (next == 'n') { sb.append('\n'); i++; continue; }
+                if (next == 'r') { sb.append('\r'); i++; continue; }
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static boolean startsWith(char[] buf, int from, int to, String prefix) {
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf[from + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean equals(char[] buf, int from, int to, String text) {
+        return to - from == text.length() && startsWith(buf, from, to, text);
+    }
+
+    private static char[][] namesOf(Enum<?>[] values) {
+        char[][] names = new char[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().toCharArray();
+        }
+        return names;
+    }
+
+    // Tolerant enum-opslag uden at bygge en ny String:
+    // trimmer, ignorerer store/små bogstaver og læser '-' og ' ' som '_' ("two hand" -> TWO_HAND)
+    private static <E> E lookup(char[] buf, int from, int to, E[] values, char[][] names) {
+        if (from >= 0) {
+            while (from < to && buf[from] <= ' ') from++;
+            while (to > from && buf[to - 1] <= ' ') to--;
+
+            for (int v = 0; v < names.length; v++) {
+                if (matchesEnumName(buf, from, to, names[v])) {
+                    return values[v];
+                }
+            }
+        }
+        String text = (from < 0) ? "" : new String(buf, from, to - from);
+        throw new IllegalArgumentException("Unknown value: " + text);
+    }
+
+    private static boolean matchesEnumName(char[] buf, int from, int to, char[] name) {
+        if (to - from != name.length) return false;
+        for (int i = 0; i < name.length; i++) {
+            char ch = buf[from + i];
+            if (ch == '-' || ch == ' ') ch = '_';
+            if (Character.toUpperCase(ch) != name[i]) return false;
+        }
+        return true;
+    }
+
+    // Hurtig vej for almindelige tal som "12" og "-3": ingen String.
+    // Alt andet (fortegn +, meget lange tal) går via Integer.parseInt, så reglerne er de samme.
+    static int parseInt(char[] buf, int from, int to) {
+        if (from < 0) {
+            throw new NumberFormatException("Missing number");
+        }
+        while (from < to && buf[from] <= ' ') from++;
+        while (to > from && buf[to - 1] <= ' ') to--;
+
+        boolean negative = from < to && buf[from] == '-';
+        int i = negative ? from + 1 : from;
+        int digits = to - i;
+
+        if (digits > 0 && digits <= 9) {
+            int value = 0;
+            for (; i < to; i++) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9) return Integer.parseInt(new String(buf, from, to - from));
+                value = value * 10 + d;
+            }
+            return negative ? -value : value;
+        }
+        return Integer.parseInt(new String(buf, from, to - from));
+    }
+
+    // Tal på formen [-]cifre[.cifre] med højst 15 cifre regnes ud direkte:
+    // heltallet og 10^decimaler er begge præcise doubles, så én division giver samme
+    // (korrekt afrundede) resultat som Double.parseDouble. Alt andet går via Double.parseDouble.
+    static double parseDouble(char[] buf, int from, int to) {
+        if (from < 0) {
+            throw new NumberFormatException("Missing number");
+        }
+        while (from < to && buf[from] <= ' ') from++;
+        while (to > from && buf[to - 1] <= ' ') to--;
+
+        boolean negative = from < to && buf[from] == '-';
+        int i = negative ? from + 1 : from;
+
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean dot = false;
+
+        for (; i < to; i++) {
+            char ch = buf[i];
+            if (ch >= '0' && ch <= '9') {
+                mantissa = mantissa * 10 + (ch - '0');
+                digits++;
+                if (dot) decimals++;
+            } else if (ch == '.' && !dot) {
+                dot = true;
+            } else {
+                digits = -1; // fx eksponent (1.0E-4) eller ugyldigt tegn
+                break;
+            }
+        }
+
+        if (digits > 0 && digits <= 15 && decimals < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[decimals];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(buf, from, to - from));
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+}
@@ -0,0 +1,334 @@
+package service;
+
+import domain.Armour;
+import domain.Consumable;
+import domain.Equipment;
+import domain.InventorySnapshot;
+import domain.Item;
+import domain.Weapon;
+import domain.enums.ArmourSlot;
+import domain.enums.HandType;
+import domain.enums.Rarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Streaming-writer til inventory-tekstformatet (modstykket til InventoryFileParser).
+// Alt skrives direkte som UTF-8 ind i én genbrugt byte-buffer, som tømmes til kanalen når
+// den er fuld: ingen String-sammensætning pr. linje, enums og faste tekster er forudberegnede
+// bytes, og tal skrives ciffer for ciffer. Tallene har samme format som den gamle PrintWriter-udgave
+// (Double.toString), så filerne kan læses af alle loadere.
+//
+// Første linje er "# checksum=xxxxxxxx": CRC32 af alt efter linjen. Den skrives som 0'er og
+// rettes til sidst direkte i filen. For gamle loadere er det bare en kommentar.
+final class InventoryFileWriter {
+
+    private static final int BUFFER_SIZE = 1 << 18;
+
+    // største antal bytes et enkelt felt kan fylde ud over navne/effekter (tal, enums, prefixes)
+    private static final int MAX_TOKEN = 64;
+
+    private static final byte[] NEWLINE = bytes(System.lineSeparator());
+
+    private static final byte[] SETTINGS = bytes("# Inventory settings");
+    private static final byte[] MAX_WEIGHT = bytes("maxWeight=");
+    private static final byte[] MAX_SLOTS = bytes("maxSlots=");
+    private static final byte[] UNLOCKED_SLOTS = bytes("unlockedSlots=");
+    private static final byte[] ITEMS = bytes("# Items");
+
+    private static final byte[] WEAPON = bytes("WEAPON;name=");
+    private static final byte[] ARMOUR = bytes("ARMOUR;name=");
+    private static final byte[] CONSUMABLE = bytes("CONSUMABLE;name=");
+    private static final byte[] RARITY = bytes(";rarity=");
+    private static final byte[] WEIGHT = bytes(";weight=");
+    private static final byte[] DAMAGE = bytes(";damage=");
+    private static final byte[] HAND = bytes(";hand=");
+    private static final byte[] DEFENCE = bytes(";defence=");
+    private static final byte[] SLOT = bytes(";slot=");
+    private static final byte[] EFFECT = bytes(";effect=");
+    private static final byte[] STACK = bytes(";stack=");
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] CHECKSUM = bytes(InventoryFileChecksum.PREFIX);
+    private static final byte[] CHECKSUM_PLACEHOLDER = bytes("00000000");
+    private static final byte[] ZERO = bytes("0.0");
+
+    private static final byte[][] RARITY_NAMES = namesOf(Rarity.values());
+    private static final byte[][] HAND_NAMES = namesOf(HandType.values());
+    private static final byte[][] SLOT_NAMES = namesOf(ArmourSlot.values());
+
+    // 10^k for de decimaler vi kan skrive uden Double.toString
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+
+    // checksum over det der skrives efter header-linjen (crcFrom = -1: tælles ikke med)
+    private final CRC32 crc = new CRC32();
+    private int crcFrom = -1;
+
+    InventoryFileWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // Skriver hele inventory (settings + items) og tømmer bufferen til sidst
+    void write(InventorySnapshot snapshot) throws IOException {
+        write(snapshot.getMaxWeight(), snapshot.getMaxSlots(), snapshot.getUnlockedSlots(), snapshot.getItems());
+    }
+
+    private void write(double maxWeight, int maxSlots, int unlockedSlots, List<Item> items) throws IOException {
+
+        // --- header med plads til checksummen ---
+        put(CHECKSUM);
+        long checksumAt = channel.position() + buffer.position();
+        put(CHECKSUM_PLACEHOLDER);
+        newline();
+        crc.reset();
+        crcFrom = buffer.position();
+
+        // --- FASE 1: metadata om inventory (settings) ---
+        line(SETTINGS);
+        put(MAX_WEIGHT);
+        decimal(maxWeight);
+        newline();
+        put(MAX_SLOTS);
+        integer(maxSlots);
+        newline();
+        put(UNLOCKED_SLOTS);
+        integer(unlockedSlots);
+        newline();
+        newline();
+
+        // --- FASE 2: items (Weapon/Armour/Consumable) ---
+        line(ITEMS);
+        for (Item item : items) {
+            item(item);
+        }
+
+        flush();
+        crcFrom = -1;
+
+        // --- checksummen skrives ind i headeren ---
+        ByteBuffer value = ByteBuffer.wrap(bytes(InventoryFileChecksum.hex(crc.getValue())));
+        while (value.hasRemaining()) {
+            channel.write(value, checksumAt + value.position());
+        }
+    }
+
+    // Equipment-fil: én linje pr. besat slot, "slot=" foran en almindelig item-linje
+    void write(Equipment equipment) throws IOException {
+        slot("mainhand", equipment.getMainHand());
+        slot("offhand", equipment.getOffHand());
+        slot("head", equipment.getHead());
+        slot("chest", equipment.getChest());
+        slot("legs", equipment.getLegs());
+        slot("feet", equipment.getFeet());
+        flush();
+    }
+
+    private void slot(String slot, Item item) throws IOException {
+        if (item != null) {
+            text(slot);
+            text("=");
+            item(item);
+        }
+    }
+
+    // Én item-linje (Weapon/Armour/Consumable) inkl. linjeskift – bruges også af journalen
+    void item(Item item) throws IOException {
+        if (item instanceof Weapon w) {
+            put(WEAPON);
+            text(w.getName());
+            put(RARITY);
+            put(RARITY_NAMES[w.getRarity().ordinal()]);
+            put(WEIGHT);
+            decimal(w.getWeight());
+            put(DAMAGE);
+            integer(w.getDamage());
+            put(HAND);
+            put(HAND_NAMES[w.getHandType().ordinal()]);
+            newline();
+
+        } else if (item instanceof Armour a) {
+            put(ARMOUR);
+            text(a.getName());
+            put(RARITY);
+            put(RARITY_NAMES[a.getRarity().ordinal()]);
+            put(WEIGHT);
+            decimal(a.getWeight());
+            put(DEFENCE);
+            integer(a.getDefence());
+            put(SLOT);
+            put(SLOT_NAMES[a.getSlot().ordinal()]);
+            newline();
+
+        } else if (item instanceof Consumable c) {
+            put(CONSUMABLE);
+            text(c.getName());
+            put(RARITY);
+            put(RARITY_NAMES[c.getRarity().ordinal()]);
+            put(WEIGHT);
+            decimal(c.getWeight());
+            // Undgå at skrive "null" som effekt i filen (giver bøvl ved load)
+            put(EFFECT);
+            if (c.getEffectType() != null) text(c.getEffectType());
+            put(STACK);
+            integer(c.getStackSize());
+            newline();
+        }
+    }
+
+    // --- byte-niveau ---
+
+    private void line(byte[] bytes) throws IOException {
+        put(bytes);
+        newline();
+    }
+
+    void newline() throws IOException {
+        put(NEWLINE);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    // Sørger for plads til n bytes (n er altid lille – lange tekster skrives tegn for tegn)
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() < n) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (crcFrom >= 0) {
+            crc.update(buffer.array(), crcFrom, buffer.position() - crcFrom);
+            crcFrom = 0;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    void flush() throws IOException {
+        if (buffer.position() > 0) {
+            drain();
+        }
+    }
+
+    // Navn/effekt som UTF-8 uden getBytes(). null skrives som "null" ligesom PrintWriter gjorde.
+    // '\\', ';' og linjeskift escapes med '\\', så de ikke kan bryde linjen (se InventoryFileParser.text).
+    void text(String s) throws IOException {
+        if (s == null) {
+            put(NULL);
+            return;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (buffer.remaining() < 4) drain();
+
+            char ch = s.charAt(i);
+            if (ch == '\\' || ch == ';') {
+                buffer.put((byte) '\\');
+                buffer.put((byte) ch);
+            } else if (ch == '\n' || ch == '\r') {
+                buffer.put((byte) '\\');
+                buffer.put((byte) (ch == '\n' ? 'n' : 'r'));
+            } else if (ch < 0x80) {
+                buffer.put((byte) ch);
+            } else if (ch < 0x800) {
+                buffer.put((byte) (0xC0 | (ch >> 6)));
+                buffer.put((byte) (0x80 | (ch & 0x3F)));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(ch, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(ch)) {
+                buffer.put((byte) '?'); // enlig surrogate – samme erstatning som String.getBytes
+            } else {
+                buffer.put((byte) (0xE0 | (ch >> 12)));
+                buffer.put((byte) (0x80 | ((ch >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (ch & 0x3F)));
+            }
+        }
+    }
+
+    void integer(long value) throws IOException {
+        ensure(MAX_TOKEN);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value; // kaldes kun med int-værdier, så -value kan ikke løbe over
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            buffer.put(digits[--n]);
+        }
+    }
+
+    // Skriver en double præcis som Double.toString. Almindelige værdier (0.001 <= v < 10^7 med
+    // højst 6 decimaler – dvs. alle realistiske vægte) skrives direkte, resten via Double.toString.
+    private void decimal(double value) throws IOException {
+        ensure(MAX_TOKEN);
+
+        double abs = Math.abs(value);
+        if (value == 0 && Double.doubleToRawLongBits(value) == 0) {
+            put(ZERO);
+            return;
+        }
+        if (abs >= 1e-3 && abs < 1e7) {
+            for (int k = 1; k < POW10.length; k++) {
+                long scaled = Math.round(abs * POW10[k]);
+                // korteste antal decimaler der giver præcis samme double tilbage
+                if ((double) scaled / POW10[k] == abs) {
+                    if (value < 0) buffer.put((byte) '-');
+                    long whole = scaled / POW10[k];
+                    long fraction = scaled % POW10[k];
+                    integer(whole);
+                    buffer.put((byte) '.');
+                    fractionDigits(fraction, k);
+                    return;
+                }
+            }
+        }
+        put(bytes(Double.toString(value)));
+    }
+
+    // Skriver k decimaler (med foranstillede nuller) og fjerner afsluttende nuller – dog mindst én
+    private void fractionDigits(long fraction, int k) {
+        int n = 0;
+        for (int i = 0; i < k; i++) {
+            digits[n++] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        int skip = 0;
+        while (skip < n - 1 && digits[skip] == '0') skip++;
+        while (n > skip) {
+            buffer.put(digits[--n]);
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] namesOf(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (Enum<?> e : values) {
+            names[e.ordinal()] = bytes(e.name());
+        }
+        return names;
+    }
+}
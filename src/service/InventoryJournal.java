@@ -0,0 +1,385 @@
+package service;
+
+import domain.Consumable;
+import domain.Inventory;
+import domain.Item;
+import domain.ItemSorter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.zip.CRC32;
+
+// Append-only journal over ændringer i et inventory (write-ahead log).
+//
+// I stedet for at gemme hele filen ved hver ændring skrives én kort linje til <snapshot>.journal:
+//   ADD <item-linje>       item lagt i inventory (samme linjeformat som save – stacker ved replay)
+//   REMOVE <index>         item på position index fjernet
+//   STACK <index> <size>   ny stack-størrelse for consumable på position index
+//   UNLOCK <amount>        slots låst op
+//   SORT <key>             inventory sorteret (NAME, WEIGHT, TYPE, RARITY, TYPE_RARITY, RARITY_NAME)
+//
+// Journalen starter med "BASE <crc>", checksummen af det snapshot den bygger videre på.
+// Ved compaction gemmes et nyt snapshot (atomisk) og journalen nulstilles. Crasher programmet
+// midt imellem, passer checksummen ikke længere, og den gamle journal ignoreres – dens
+// ændringer ligger jo allerede i det nye snapshot.
+//
+// Holdbarhed: hver record fsync'es (FileChannel.force), før metoden der skrev den returnerer.
+// En ændring der er meldt tilbage til brugeren, overlever altså et crash eller strømsvigt.
+// Ingen group commit – en ændring pr. brugerhandling er få nok til at det kan betale sig.
+//
+// Snapshot-filen ejes af journalen, mens den er aktiv: skriver andre til den (save, autosave),
+// passer BASE ikke længere, og journalens ændringer ville blive ignoreret ved næste load.
+// Sådanne saves skal derfor gå gennem compaction (se isSnapshot og InventoryService.save),
+// og autosave til samme fil afvises, så længe journalen kører.
+//
+// Equipment er ikke en del af save-formatet, så equip/unequip journaliseres kun som
+// REMOVE/ADD på inventory.
+final class InventoryJournal implements Closeable {
+
+    static final String SUFFIX = ".journal";
+
+    // så mange records før journalen foldes ind i et nyt snapshot
+    static final int COMPACT_AFTER = 10_000;
+
+    private static final String BASE = "BASE ";
+
+    private Inventory inventory;
+    private final String snapshotPath;
+    private final Path journalPath;
+
+    private FileChannel channel;
+    private InventoryFileWriter writer;
+    private int records;
+
+    private InventoryJournal(Inventory inventory, String snapshotPath) {
+        this.inventory = inventory;
+        this.snapshotPath = snapshotPath;
+        this.journalPath = Path.of(snapshotPath + SUFFIX);
+    }
+
+    // Starter journal-mode for inventory med path som snapshot. Der startes altid med et frisk
+    // snapshot af inventory, så en gammel (evt. forældet) journal aldrig forlænges.
+    // Returnerer null ved fejl.
+    static InventoryJournal start(Inventory inventory, String path) {
+        InventoryJournal journal = new InventoryJournal(inventory, path);
+        try {
+            journal.compact();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            return null;
+        }
+    }
+
+    // Læser snapshot + journal ind i et NYT inventory (som InventoryFileHandler.read).
+    // null hvis snapshot'et ikke kan læses eller en record ikke kan afspilles.
+    static Inventory read(String path, Inventory template) {
+        Inventory fresh = InventoryFileHandler.read(path, template);
+        if (fresh == null) {
+            return null;
+        }
+        try {
+            return new InventoryJournal(fresh, path).replay() ? fresh : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Journalen følger nu et andet inventory (fx efter load) – starter forfra med et nyt snapshot
+    boolean restart(Inventory inventory) {
+        this.inventory = inventory;
+        return compactQuietly();
+    }
+
+    // Er path journalens snapshot-fil? (så skal den gemmes via compaction, ikke overskrives)
+    boolean isSnapshot(String path) {
+        return samePath(path, snapshotPath);
+    }
+
+    // Peger de to stier på samme fil? (sammenlignes som absolutte, normaliserede stier)
+    static boolean samePath(String a, String b) {
+        try {
+            return a != null && b != null && Path.of(a).toAbsolutePath().normalize()
+                    .equals(Path.of(b).toAbsolutePath().normalize());
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    // Har path en journal ved siden af?
+    static boolean exists(String path) {
+        return path != null && fileExists(path + SUFFIX);
+    }
+
+    static boolean fileExists(String path) {
+        try {
+            return path != null && Files.exists(Path.of(path));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    // --- records ---
+
+    void added(Item item) {
+        if (begin()) {
+            try {
+                writer.text("ADD ");
+                writer.item(item);
+                end();
+            } catch (IOException e) {
+                failed();
+            }
+        }
+    }
+
+    // index skal være itemets position FØR det blev fjernet
+    void removed(int index) {
+        if (begin()) {
+            try {
+                writer.text("REMOVE ");
+                writer.integer(index);
+                writer.newline();
+                end();
+            } catch (IOException e) {
+                failed();
+            }
+        }
+    }
+
+    void stackChanged(Consumable consumable) {
+        int index = inventory.indexOf(consumable);
+        if (index < 0) return;
+
+        if (begin()) {
+            try {
+                writer.text("STACK ");
+                writer.integer(index);
+                writer.text(" ");
+                writer.integer(consumable.getStackSize());
+                writer.newline();
+                end();
+            } catch (IOException e) {
+                failed();
+            }
+        }
+    }
+
+    void unlocked(int amount) {
+        if (begin()) {
+            try {
+                writer.text("UNLOCK ");
+                writer.integer(amount);
+                writer.newline();
+                end();
+            } catch (IOException e) {
+                failed();
+            }
+        }
+    }
+
+    // Kendte rækkefølger journaliseres. En vilkårlig Comparator kan ikke skrives ned,
+    // så der gemmes et nyt snapshot i stedet.
+    void sorted(Comparator<Item> order) {
+        String key = sortKey(order);
+        if (key == null) {
+            compactQuietly();
+            return;
+        }
+        if (begin()) {
+            try {
+                writer.text("SORT ");
+                writer.text(key);
+                writer.newline();
+                end();
+            } catch (IOException e) {
+                failed();
+            }
+        }
+    }
+
+    // Folder journalen ind i et nyt snapshot og starter en tom journal
+    boolean compactQuietly() {
+        try {
+            compact();
+            return true;
+        } catch (IOException e) {
+            failed();
+            return false;
+        }
+    }
+
+    // Stopper journal-mode (alt skrevet indtil nu er allerede på disken)
+    @Override
+    public void close() {
+        closeChannel();
+        writer = null;
+    }
+
+    // --- intern ---
+
+    // false hvis journalen er lukket. Er en tidligere skrivning fejlet, prøves et nyt snapshot
+    // først, så journalen aldrig mangler en ændring i midten.
+    private boolean begin() {
+        if (channel == null) {
+            return writer != null && compactQuietly() && channel != null;
+        }
+        return true;
+    }
+
+    private void end() throws IOException {
+        writer.flush();        // én write pr. record
+        channel.force(false);  // og på disken før ændringen meldes tilbage (kun data, ikke metadata)
+        if (++records >= COMPACT_AFTER) {
+            compact();
+        }
+    }
+
+    // En record kunne ikke skrives: luk kanalen, så næste ændring starter med et nyt snapshot
+    private void failed() {
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // intet at gøre – alle records er allerede skrevet
+            }
+            channel = null;
+        }
+    }
+
+    private void compact() throws IOException {
+        closeChannel();
+        if (!InventoryFileHandler.save(inventory, snapshotPath)) {
+            throw new IOException("Could not write snapshot " + snapshotPath);
+        }
+
+        // ny journal med checksum for det nye snapshot (atomisk og fsync'et, som save)
+        if (!InventoryFileHandler.writeText(journalPath.toString(), BASE + checksum() + System.lineSeparator())) {
+            throw new IOException("Could not write journal " + journalPath);
+        }
+
+        records = 0;
+        openForAppend();
+    }
+
+    private void openForAppend() throws IOException {
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writer = new InventoryFileWriter(channel);
+    }
+
+    // Afspiller journalen oven på inventory (som allerede indeholder snapshot'et)
+    private boolean replay() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return true;
+        }
+
+        // kun hele linjer tæller – en halvt skrevet sidste record (crash) ignoreres
+        byte[] bytes = Files.readAllBytes(journalPath);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') end--;
+        char[] buf = new String(bytes, 0, end, StandardCharsets.UTF_8).toCharArray();
+
+        InventoryFileParser parser = new InventoryFileParser();
+        int lineStart = 0;
+        boolean first = true;
+
+        for (int i = 0; i < buf.length; i++) {
+            if (buf[i] != '\n') continue;
+
+            int lineEnd = (i > lineStart && buf[i - 1] == '\r') ? i - 1 : i;
+            String line = new String(buf, lineStart, lineEnd - lineStart);
+
+            if (first) {
+                // journalen hører til et ældre snapshot – ændringerne ligger allerede i snapshot'et
+                if (!line.equals(BASE + checksum())) {
+                    return true;
+                }
+                first = false;
+            } else if (line.startsWith("ADD ")) {
+                parser.items.clear();
+                parser.parseLine(buf, lineStart + 4, lineEnd);
+                if (parser.items.size() != 1 || !inventory.addItem(parser.items.get(0))) {
+                    return false;
+                }
+            } else {
+                apply(line);
+            }
+
+            records++;
+            lineStart = i + 1;
+        }
+        return true;
+    }
+
+    private void apply(String line) {
+        String[] parts = line.split(" ");
+        switch (parts[0]) {
+            case "REMOVE" -> inventory.removeItem(itemAt(parts[1]));
+            case "STACK" -> {
+                if (!(itemAt(parts[1]) instanceof Consumable c)) {
+                    throw new IllegalArgumentException("Not a consumable: " + line);
+                }
+                c.setStackSize(Integer.parseInt(parts[2]));
+            }
+            case "UNLOCK" -> {
+                if (!inventory.unlockInventorySlots(Integer.parseInt(parts[1]))) {
+                    throw new IllegalArgumentException("Cannot replay: " + line);
+                }
+            }
+            case "SORT" -> sort(parts[1]);
+            default -> throw new IllegalArgumentException("Unknown journal record: " + line);
+        }
+    }
+
+    private Item itemAt(String index) {
+        return inventory.getItems().get(Integer.parseInt(index));
+    }
+
+    private static String sortKey(Comparator<Item> order) {
+        if (order == ItemSorter.BY_NAME) return "NAME";
+        if (order == ItemSorter.BY_WEIGHT) return "WEIGHT";
+        if (order == ItemSorter.BY_TYPE) return "TYPE";
+        if (order == ItemSorter.BY_RARITY) return "RARITY";
+        if (order == ItemSorter.BY_TYPE_THEN_RARITY) return "TYPE_RARITY";
+        if (order == ItemSorter.BY_RARITY_DESC_THEN_NAME) return "RARITY_NAME";
+        return null;
+    }
+
+    private void sort(String key) {
+        switch (key) {
+            case "NAME" -> inventory.sortByName();
+            case "WEIGHT" -> inventory.sortByWeight();
+            case "TYPE" -> inventory.sortByType();
+            case "RARITY" -> inventory.sortByRarity();
+            case "TYPE_RARITY" -> inventory.sortBy(ItemSorter.BY_TYPE_THEN_RARITY);
+            case "RARITY_NAME" -> inventory.sortBy(ItemSorter.BY_RARITY_DESC_THEN_NAME);
+            default -> throw new IllegalArgumentException("Unknown sort key: " + key);
+        }
+    }
+
+    // CRC32 af snapshot-filen, så journalen kan kobles til præcis det snapshot
+    private long checksum() throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(Path.of(snapshotPath))) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                crc.update(buf, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -1,6 +1,7 @@
 package service;
 
 import domain.*;
+import domain.enums.AddOutcome;
 import domain.enums.ArmourSlot;
 import domain.enums.HandType;
 import domain.enums.ItemType;
@@ -10,7 +11,9 @@ import exceptions.MaxWeightReached;
 import exceptions.NegativeValues;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Service-lag mellem UI (Menu) og domain.
 // Samler logik for inventory, equipment, søgning, sortering og filhåndtering.
@@ -18,10 +21,29 @@ import java.util.List;
 // Domain kaster exceptions.
 // Service fanger dem og oversætter til brugervenlige beskeder.
 // UI står kun for input og output.
+//
+// Metoder der ændrer inventory/equipment er synchronized, så autosave-tråden kan tage et
+// konsistent snapshot (se snapshot()) uden at se en halv ændring.
 public class InventoryService {
 
+    // hvor ofte autosave kigger efter ændringer
+    public static final long AUTOSAVE_INTERVAL_MILLIS = 5_000;
+
     private final Player player;        // den aktive spiller
-    private final Inventory inventory;  // genvej til spillerens inventory
+    private volatile Inventory inventory;  // genvej til spillerens inventory (skiftes ud ved load)
+
+    // lægges til getVersion(), så versionen bliver ved med at stige når inventory skiftes ud
+    private volatile long versionBase = 0;
+
+    private InventoryJournal journal;   // null = ingen journal (almindelig save/load)
+    private Autosave autosave;          // null = autosave slået fra
+
+    // start/stop af journal og autosave (så de ikke kan startes mod samme fil på samme tid)
+    private final Object modeLock = new Object();
+
+    // fast, unik rækkefølge når to services låses på én gang (se TradeService)
+    private static final AtomicLong NEXT_LOCK_ORDER = new AtomicLong();
+    final long lockOrder = NEXT_LOCK_ORDER.getAndIncrement();
 
     public InventoryService(Player player) {
         this.player = player;
@@ -53,7 +75,7 @@ public class InventoryService {
     }
 
     // Opretter det konkrete item (Weapon/Armour/Consumable) ud fra input fra Menu
-    public String addItem(
+    public synchronized String addItem(
             String name,
             ItemType type,
             Rarity rarity,
@@ -104,6 +126,7 @@ public class InventoryService {
 
             // addItem håndterer selv stacking, slots og vægt
             boolean added = inventory.addItem(item);
+            if (added && journal != null) journal.added(item);
 
             return added
                     ? "Item has been added to the inventory!"
@@ -135,12 +158,14 @@ public class InventoryService {
     }
 
 
-    public String removeItemByName(String name) {
+    public synchronized String removeItemByName(String name) {
         // Service forventer enten et gyldigt item eller en ItemNotFound-exception fra domain.
         try {
             Item item = inventory.requireItemByName(name);
+            int index = inventory.indexOf(item);
 
             if (inventory.removeItem(item)) {
+                if (journal != null) journal.removed(index);
                 return "Item has been removed from the inventory!";
             }
             return "Item could not be removed.";
@@ -152,7 +177,7 @@ public class InventoryService {
 
     // Bruger et consumable og håndterer stack-logik.
     // Tjekker med instanceof for at sikre korrekt type før cast.
-    public String useConsumable(String name) {
+    public synchronized String useConsumable(String name) {
 
         Item item;
         try {
@@ -167,14 +192,18 @@ public class InventoryService {
             return "Item is not a consumable.";
         }
 
-        int currentStack = c.getStackSize();
-
-        // Reducerer stack hvis der er flere tilbage
-        if (currentStack > 1) {
-            c.setStackSize(currentStack - 1);
-        } else {
-            // Sidste i stacken fjernes helt fra inventory
-            inventory.removeItem(c);
+        // Ét skridt i domain: stacken bliver mindre, eller fjernes når den sidste er brugt
+        int index = (journal != null) ? inventory.indexOf(c) : -1;
+        int left = inventory.consume(c, 1);
+        if (left < 0) {
+            return "Item could not be used.";
+        }
+        if (journal != null) {
+            if (left > 0) {
+                journal.stackChanged(c);
+            } else {
+                journal.removed(index);
+            }
         }
 
         // Feedback til brugeren
@@ -185,8 +214,8 @@ public class InventoryService {
             message += " (" + effect + ")";
         }
 
-        if (c.getStackSize() > 0) {
-            message += " | Remaining in stack: " + c.getStackSize();
+        if (left > 0) {
+            message += " | Remaining in stack: " + left;
         }
 
         return message;
@@ -194,13 +223,13 @@ public class InventoryService {
 
     // Equipper et item og fjerner det fra inventory hvis equip lykkes.
     // Flytter altså item fra Inventory -> Equipment.
-    public String equip(Item item) {
+    public synchronized String equip(Item item) {
 
         if (item instanceof Weapon w) {
             boolean ok = player.getEquipment().equipWeapon(w);
 
             if (ok) {
-                inventory.removeItem(w);
+                removeEquipped(w);
                 return "Equipped weapon: " + w.getName();
             }
             return "Cannot equip weapon. Hands full.";
@@ -210,7 +239,7 @@ public class InventoryService {
             boolean ok = player.getEquipment().equipArmour(a);
 
             if (ok) {
-                inventory.removeItem(a);
+                removeEquipped(a);
                 return "Equipped armour: " + a.getName();
             }
             return "Cannot equip armour. Invalid slot.";
@@ -219,10 +248,15 @@ public class InventoryService {
         return "Item cannot be equipped.";
     }
 
+    private void removeEquipped(Item item) {
+        int index = inventory.indexOf(item);
+        if (inventory.removeItem(item) && journal != null) journal.removed(index);
+    }
+
     // Unequipper et item og lægger det tilbage i inventory.
     // Flytter altså item fra Equipment -> Inventory.
     // VIGTIGT: hvis inventory ikke kan tage imod (full/weight), så ruller vi tilbage.
-    public String unequip(String slot) {
+    public synchronized String unequip(String slot) {
 
         Item removed = player.getEquipment().unequip(slot);
 
@@ -238,6 +272,7 @@ public class InventoryService {
                 player.getEquipment().restoreToSlot(slot, removed);
                 return "Cannot unequip " + removed.getName() + ". Inventory is full.";
             }
+            if (journal != null) journal.added(removed);
 
             return "Unequipped " + removed.getName() + " from " + slot;
 
@@ -249,86 +284,401 @@ public class InventoryService {
         }
     }
 
-    public void sortByName() {
+    // Items i sorteret rækkefølge uden at ændre inventory's egen rækkefølge.
+    // Visningen holdes opdateret af inventory, så der ikke sorteres igen hver gang.
+    // Luk den (close) når den er brugt, fx med try-with-resources.
+    public SortedItemView getSortedView(Comparator<Item> order) {
+        return inventory.sortedView(order);
+    }
+
+    // Gemmer en rækkefølge permanent i inventory (fx efter brugeren har set en sorteret visning)
+    public synchronized void sortBy(Comparator<Item> order) {
+        inventory.sortBy(order);
+        if (journal != null) journal.sorted(order);
+    }
+
+    public synchronized void sortByName() {
         inventory.sortByName();
+        if (journal != null) journal.sorted(ItemSorter.BY_NAME);
     }
 
-    public void sortByWeight() {
+    public synchronized void sortByWeight() {
         inventory.sortByWeight();
+        if (journal != null) journal.sorted(ItemSorter.BY_WEIGHT);
     }
 
     // ekstra sorteringsmuligheder (bonus men nice)
-    public void sortByType() {
+    public synchronized void sortByType() {
         inventory.sortByType();
+        if (journal != null) journal.sorted(ItemSorter.BY_TYPE);
     }
 
-    public void sortByRarity() {
+    public synchronized void sortByRarity() {
         inventory.sortByRarity();
+        if (journal != null) journal.sorted(ItemSorter.BY_RARITY);
     }
 
+    // Filnavne der ender på .bin gemmes i det kompakte binære format, alt andet som tekst.
+    // load() genkender selv formatet.
+    // Er path snapshot'et for en aktiv journal, gemmes via compaction (nyt snapshot + tom journal),
+    // ellers ville journalens BASE ikke længere passe, og dens ændringer blive ignoreret ved load.
     public boolean save(String path) {
+        synchronized (this) {
+            if (journal != null && journal.isSnapshot(path)) {
+                return journal.compactQuietly();
+            }
+        }
+        if (isBinaryPath(path)) {
+            return InventoryFileHandler.saveBinary(inventory, path);
+        }
         return InventoryFileHandler.save(inventory, path);
     }
 
+    private static boolean isBinaryPath(String path) {
+        return path != null && path.toLowerCase().endsWith(".bin");
+    }
+
+    // Transaktionel load: filen læses ind i et nyt inventory ved siden af, mens det nuværende
+    // stadig kan bruges (og autosaves). Først når alt er gyldigt, skiftes det ind i Player.
+    // Fejler load, er intet ændret – heller ikke maxWeight/slots.
+    // Har filen en journal ved siden af (<path>.journal), afspilles den oven på snapshot'et.
     public boolean load(String path) {
-        return InventoryFileHandler.load(inventory, path);
+        Inventory loaded = InventoryJournal.exists(path)
+                ? InventoryJournal.read(path, inventory)
+                : InventoryFileHandler.read(path, inventory);
+
+        if (loaded == null) {
+            return false;
+        }
+
+        synchronized (this) {
+            swapInventory(loaded);
+            // hele inventory er skiftet ud – en aktiv journal starter forfra med et nyt snapshot
+            if (journal != null) journal.restart(loaded);
+        }
+        return true;
+    }
+
+    // Equipment gemmes i sin egen fil (se InventoryFileHandler.saveEquipment).
+    // Kopien tages under låsen, selve skrivningen sker uden for den.
+    public boolean saveEquipment(String path) {
+        Equipment copy;
+        synchronized (this) {
+            copy = player.getEquipment().copy();
+        }
+        return InventoryFileHandler.saveEquipment(copy, path);
+    }
+
+    // Som load(): filen læses først, og equipment skiftes kun ud hvis den er gyldig
+    public boolean loadEquipment(String path) {
+        Equipment loaded = InventoryFileHandler.readEquipment(path);
+        if (loaded == null) {
+            return false;
+        }
+        synchronized (this) {
+            versionBase += player.getEquipment().getVersion() + 1;
+            player.setEquipment(loaded);
+        }
+        return true;
+    }
+
+    // Kaldes af TradeService under låsen, når en handel har ændret inventory. En aktiv journal får
+    // handlens ændringer som almindelige records (REMOVE, så STACK, så ADD – samme rækkefølge som
+    // handlen udførte dem), og compaction sker som ellers efter COMPACT_AFTER records.
+    void traded(TradeResult.Changes changes) {
+        if (journal == null) {
+            return;
+        }
+        for (int index : changes.removed()) {
+            journal.removed(index);
+        }
+        for (Consumable c : changes.stacked()) {
+            journal.stackChanged(c);
+        }
+        for (Item item : changes.added()) {
+            journal.added(item);
+        }
+    }
+
+    // Skifter spillerens inventory ud i ét skridt (kaldes under låsen)
+    private void swapInventory(Inventory loaded) {
+        versionBase += inventory.getVersion() + 1;
+        player.setInventory(loaded);
+        inventory = loaded;
+    }
+
+    // --- journal-mode ---
+    // Hver ændring skrives som én linje til <path>.journal i stedet for at gemme hele filen.
+    // Journalen foldes ind i snapshot'et (path) med jævne mellemrum og ved compactJournal().
+
+    // Loader path + journal hvis filen findes (transaktionelt, som load),
+    // ellers bliver nuværende inventory første snapshot
+    // Afvises (false) hvis autosave skriver til samme fil – den ville overskrive snapshot'et
+    // bag journalens ryg, og journalens ændringer ville blive ignoreret ved næste load.
+    public boolean startJournal(String path) {
+        synchronized (modeLock) {
+            stopJournal();
+            if (autosave != null && InventoryJournal.samePath(autosave.getPath(), path)) {
+                return false;
+            }
+
+            Inventory target = inventory;
+            if (InventoryJournal.fileExists(path)) {
+                target = InventoryJournal.read(path, inventory);
+                if (target == null) return false;
+            }
+
+            InventoryJournal started = InventoryJournal.start(target, path);
+            if (started == null) {
+                return false;
+            }
+
+            synchronized (this) {
+                if (target != inventory) swapInventory(target);
+                journal = started;
+            }
+            return true;
+        }
+    }
+
+    public synchronized boolean compactJournal() {
+        return journal != null && journal.compactQuietly();
+    }
+
+    public synchronized void stopJournal() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    public boolean isJournaling() {
+        return journal != null;
+    }
+
+    // --- autosave ---
+    // Gemmer i baggrunden når noget er ændret (højst én gang pr. interval), se Autosave.
+
+    // Starter autosave til path. Første save sker med det samme, så en ugyldig path opdages her.
+    // Afvises (false) hvis path er snapshot'et for en aktiv journal: journalen gemmer allerede
+    // hver ændring, og en autosave ville gøre journalens BASE ugyldig (se InventoryJournal).
+    public boolean startAutosave(String path) {
+        return startAutosave(path, AUTOSAVE_INTERVAL_MILLIS);
+    }
+
+    public boolean startAutosave(String path, long intervalMillis) {
+        synchronized (modeLock) {
+            stopAutosave();
+            if (path == null || path.isBlank() || intervalMillis <= 0) {
+                return false;
+            }
+            if (journal != null && journal.isSnapshot(path)) {
+                return false;
+            }
+
+            Autosave started = new Autosave(this, path, isBinaryPath(path), intervalMillis);
+            if (!started.flush()) {
+                started.close();
+                return false;
+            }
+            autosave = started;
+            return true;
+        }
+    }
+
+    // Stopper autosave efter en sidste save af evt. ændringer (false hvis den fejlede)
+    public boolean stopAutosave() {
+        synchronized (modeLock) {
+            if (autosave == null) {
+                return true;
+            }
+            boolean ok = autosave.close();
+            autosave = null;
+            return ok;
+        }
+    }
+
+    public boolean isAutosaving() {
+        return autosave != null;
+    }
+
+    // Antal saves, seneste/max varighed og fejl – til visning i UI
+    public String getAutosaveStatus() {
+        return (autosave != null) ? autosave.status() : "Autosave is off.";
+    }
+
+    // Stiger ved hver ændring af inventory eller equipment (læses uden lås)
+    public long getVersion() {
+        return versionBase + inventory.getVersion() + player.getEquipment().getVersion();
+    }
+
+    // Konsistent kopi af inventory, taget under samme lås som alle ændringer
+    public synchronized InventorySnapshot snapshot() {
+        return inventory.snapshot();
+    }
+
+    // Equipment og inventory kopieret i samme låste skridt (til fx PlayerRepository), så et item der
+    // equippes eller unequippes imens, står i præcis én af de to kopier. version er versionen af netop dem.
+    public record SavedState(Equipment equipment, InventorySnapshot inventory, long version) { }
+
+    public synchronized SavedState savedState() {
+        return new SavedState(player.getEquipment().copy(), inventory.snapshot(), getVersion());
     }
 
     // Finder alle items hvor navnet indeholder søgeteksten (case-insensitive).
     // Tomt eller blank input returnerer en tom liste.
+    // Opslaget går via inventory's trigram-indeks, så navne ikke lowercases ved hver søgning.
     public List<Item> searchByNameContains(String text) {
 
         if (text == null || text.isBlank()) {
             return new ArrayList<>();
         }
 
-        text = text.toLowerCase();
-        List<Item> results = new ArrayList<>();
+        return inventory.findItemsByNameContains(text);
+    }
 
-        for (Item i : inventory.getItems()) {
-            if (i.getName().toLowerCase().contains(text)) {
-                results.add(i);
-            }
+    // filtrerer items efter type (slås op i inventory's indeks, ingen fuld scanning)
+    public List<Item> filterByType(ItemType type) {
+        return inventory.findItemsByType(type);
+    }
+
+    public List<Item> filterByWeight(double min, double max) {
+        return inventory.findItemsByWeight(min, max);
+    }
+
+    public List<Item> filterByRarity(Rarity rarity) {
+        return inventory.findItemsByRarity(rarity);
+    }
+
+    // Kombineret søgning i ét opslag: alle udfyldte felter skal passe.
+    // null betyder "ignorer feltet", så UI kun sender det brugeren har skrevet.
+    public List<Item> search(String nameText, ItemType type, Rarity minRarity,
+                             Double minWeight, Double maxWeight) {
+
+        InventoryQuery query = inventory.query().nameContains(nameText);
+
+        if (type != null) {
+            query.type(type);
+        }
+        if (minRarity != null) {
+            query.minRarity(minRarity);
+        }
+        if (minWeight != null || maxWeight != null) {
+            double min = (minWeight != null) ? minWeight : 0;
+            double max = (maxWeight != null) ? maxWeight : Double.MAX_VALUE;
+            query.weightBetween(min, max);
         }
-        return results;
+
+        return query.list();
     }
 
-    // filtrerer items efter type
-    public List<Item> filterByType(ItemType type) {
-        List<Item> results = new ArrayList<>();
+    // --- delt lager (SharedStash) ---
+
+    // Lægger amount af et item i et delt lager (for consumables en del af stacken).
+    // Enhederne tages først ud af inventory i ét atomisk skridt (consume/removeItem), så de ikke
+    // kan bruges af andre imens. Vil lageret ikke have dem, lægges de tilbage i inventory.
+    public synchronized String depositToStash(SharedStash stash, String name, int amount) {
+        Item item;
+        try {
+            item = inventory.requireItemByName(name);
+        } catch (ItemNotFound e) {
+            return e.getMessage();
+        }
+        if (amount < 1 || (!(item instanceof Consumable) && amount != 1)) {
+            return "Invalid amount.";
+        }
 
-        for (Item i : inventory.getItems()) {
-            if (i.getType() == type) {
-                results.add(i);
+        int index = inventory.indexOf(item);
+        boolean removed;   // hele item'et/stacken er taget ud (ellers er stacken blot blevet mindre)
+        Item units;        // det der lægges i lageret
+        if (item instanceof Consumable c) {
+            int left = inventory.consume(c, amount);
+            if (left < 0) {
+                return "Invalid amount.";
+            }
+            removed = (left == 0);
+            units = removed ? c : part(c, amount);
+        } else {
+            if (!inventory.removeItem(item)) {
+                return "Item not found: " + name;
             }
+            removed = true;
+            units = item;
         }
-        return results;
+
+        AddOutcome outcome = stash.deposit(units);
+        if (outcome == AddOutcome.ADDED || outcome == AddOutcome.STACKED) {
+            if (journal != null) {
+                if (removed) {
+                    journal.removed(index);
+                } else {
+                    journal.stackChanged((Consumable) item);
+                }
+            }
+            return "Item has been deposited in the stash!";
+        }
+
+        putBack(item, units, amount, removed, index);
+        if (outcome == AddOutcome.NO_SLOT) {
+            return "Item could not be deposited. The stash is full.";
+        }
+        if (outcome == AddOutcome.TOO_HEAVY) {
+            return "Item could not be deposited. The stash cannot hold more weight.";
+        }
+        return "Invalid amount.";
     }
 
-    public List<Item> filterByWeight(double min, double max) {
-        List<Item> results = new ArrayList<>();
+    // amount enheder af en stack som en ny stack (uden ejer) med samme data
+    private static Consumable part(Consumable c, int amount) {
+        Consumable part = new Consumable(c.getName(), c.getRarity(), c.getWeight(), amount);
+        part.setEffectType(c.getEffectType());
+        return part;
+    }
 
-        for (Item i : inventory.getItems()) {
-            if (i.getWeight() >= min && i.getWeight() <= max) {
-                results.add(i);
-            }
+    // Lageret afviste: enhederne tilbage på stacken, eller hele item'et tilbage på sin gamle plads.
+    // Så er inventory som før, og der er intet at journalføre. Kun hvis det ikke lykkes (fx er
+    // stacken brugt op imens), lægges enhederne i sidste slot.
+    private void putBack(Item item, Item units, int amount, boolean removed, int index) {
+        if (!removed && inventory.restock((Consumable) item, amount) >= 0) {
+            return;
+        }
+        if (removed && inventory.restoreItem(units, index)) {
+            return;
+        }
+        inventory.addItem(units);
+        if (journal != null) {
+            if (removed) journal.removed(index);
+            journal.added(units);
         }
-        return results;
     }
 
-    public List<Item> filterByRarity(Rarity rarity) {
-        List<Item> results = new ArrayList<>();
+    // Tager amount af et item fra et delt lager og lægger det i inventory.
+    // Passer det ikke i inventory, bliver det liggende i lageret.
+    public synchronized String withdrawFromStash(SharedStash stash, String name, int amount) {
+        BatchAddResult result = stash.withdrawTo(inventory, name, amount);
+        if (result == null) {
+            return "The stash does not have " + amount + " x " + name + ".";
+        }
 
-        for (Item i : inventory.getItems()) {
-            if (i.getRarity() == rarity) {
-                results.add(i);
+        Item holder = result.getHolders().get(0);
+        return switch (result.getOutcomes().get(0)) {
+            case ADDED -> {
+                if (journal != null) journal.added(holder);
+                yield "Item has been taken from the stash!";
             }
-        }
-        return results;
+            case STACKED -> {
+                if (journal != null) journal.stackChanged((Consumable) holder);
+                yield "Item has been taken from the stash!";
+            }
+            case TOO_HEAVY -> "Item could not be taken. Max weight exceeded.";
+            default -> "Item could not be taken. Inventory is full.";
+        };
     }
 
     // unlocker inventory slots
-    public boolean unlockInventorySlots(int amount) {
-        return player.getInventory().unlockInventorySlots(amount);
+    public synchronized boolean unlockInventorySlots(int amount) {
+        boolean ok = player.getInventory().unlockInventorySlots(amount);
+        if (ok && journal != null) journal.unlocked(amount);
+        return ok;
     }
 }
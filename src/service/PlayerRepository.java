@@ -0,0 +1,247 @@
+package service;
+
+import domain.Player;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Holder styr på mange spillere med hver sine filer i én mappe:
+//   <navn>.txt        inventory (samme format som almindelig save)
+//   <navn>.equipment  equipment (kun når spilleren har noget equippet)
+//
+// Spillere loades først når de bruges (get) og ligger derefter i en LRU-cache med fast kapacitet.
+// Bliver cachen fuld, gemmes den spiller der har været ubrugt længst (hvis der er ændringer),
+// og først derefter smides den ud af hukommelsen. Hukommelsesforbruget afhænger derfor af
+// kapaciteten, ikke af hvor mange spillere der ligger på disken.
+//
+// En InventoryService fra get() skal ikke gemmes væk: efter eviction er den ikke længere koblet
+// til filen. Hent den via get() hver gang.
+//
+// Navne er ikke case-sensitive ("Bob" og "bob" er samme spiller), ligesom filnavne på Windows.
+public class PlayerRepository {
+
+    public static final String INVENTORY_SUFFIX = ".txt";
+    public static final String EQUIPMENT_SUFFIX = ".equipment";
+
+    private final Path directory;
+    private final int capacity;
+
+    // accessOrder = true: iteration starter ved den spiller der har været ubrugt længst
+    private final LinkedHashMap<String, Entry> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+    // En loadet spiller og den version der senest er gemt (ens = intet at gemme)
+    private static final class Entry {
+        final InventoryService service;
+        long savedVersion;
+
+        Entry(InventoryService service) {
+            this.service = service;
+            this.savedVersion = service.getVersion();
+        }
+    }
+
+    public PlayerRepository(String directory, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.directory = Path.of(directory);
+        this.capacity = capacity;
+    }
+
+    // Spillerens service – loades fra disken første gang (ny spiller hvis der ingen fil er).
+    // null hvis navnet er ugyldigt eller spillerens filer ikke kan læses; så hellere ingen
+    // spiller end en tom, der senere overskriver den defekte fil.
+    public synchronized InventoryService get(String name) {
+        String key = key(name);
+        if (key == null) {
+            return null;
+        }
+
+        Entry entry = loaded.get(key);
+        if (entry != null) {
+            return entry.service;
+        }
+
+        InventoryService service = new InventoryService(new Player(name.trim()));
+        Path inventoryFile = directory.resolve(key + INVENTORY_SUFFIX);
+        Path equipmentFile = directory.resolve(key + EQUIPMENT_SUFFIX);
+
+        if (Files.exists(inventoryFile) && !service.load(inventoryFile.toString())) {
+            return null;
+        }
+        if (Files.exists(equipmentFile) && !service.loadEquipment(equipmentFile.toString())) {
+            return null;
+        }
+
+        loaded.put(key, new Entry(service));
+        evictIdle(key);
+        return service;
+    }
+
+    // Findes spilleren (i hukommelsen eller på disken)?
+    public synchronized boolean exists(String name) {
+        String key = key(name);
+        return key != null
+                && (loaded.containsKey(key) || Files.exists(directory.resolve(key + INVENTORY_SUFFIX)));
+    }
+
+    // Navne på alle spillere på disken plus dem der kun findes i hukommelsen (ikke gemt endnu).
+    // Navne fra disken er filnavnet afkodet, dvs. med små bogstaver.
+    public synchronized List<String> listPlayers() {
+        List<String> names = new ArrayList<>();
+        for (Entry entry : loaded.values()) {
+            names.add(entry.service.getPlayer().getName());
+        }
+
+        if (!Files.isDirectory(directory)) {
+            return names;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + INVENTORY_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String key = fileName.substring(0, fileName.length() - INVENTORY_SUFFIX.length());
+                if (!loaded.containsKey(key)) {
+                    String name = decode(key);
+                    if (name != null) names.add(name);
+                }
+            }
+        } catch (IOException e) {
+            // mappen kunne ikke læses – vi viser dem vi har
+        }
+        return names;
+    }
+
+    // Gemmer alle loadede spillere med ændringer. false hvis mindst én fejlede.
+    public synchronized boolean flush() {
+        boolean ok = true;
+        for (Map.Entry<String, Entry> e : loaded.entrySet()) {
+            ok &= save(e.getKey(), e.getValue());
+        }
+        return ok;
+    }
+
+    // Gemmer alt og tømmer cachen. Spillere der ikke kunne gemmes, bliver i hukommelsen.
+    public synchronized boolean close() {
+        boolean ok = true;
+        Iterator<Map.Entry<String, Entry>> it = loaded.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (save(e.getKey(), e.getValue())) {
+                it.remove();
+            } else {
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    public synchronized int getLoadedCount() {
+        return loaded.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Smider de længst ubrugte spillere ud indtil cachen er inden for kapaciteten.
+    // En spiller der ikke kan gemmes, bliver i hukommelsen (hellere over kapacitet end tabt data).
+    // Den spiller der lige er hentet (keep), smides aldrig ud.
+    private void evictIdle(String keep) {
+        Iterator<Map.Entry<String, Entry>> it = loaded.entrySet().iterator();
+        while (loaded.size() > capacity && it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (!e.getKey().equals(keep) && save(e.getKey(), e.getValue())) {
+                it.remove();
+            }
+        }
+    }
+
+    // Gemmer inventory og equipment hvis versionen er ændret siden sidst.
+    // Begge kopier tages i ét skridt under service-låsen (se InventoryService.savedState), så et
+    // item der equippes/unequippes imens, står i præcis én af filerne. Senere ændringer gemmes næste gang.
+    private boolean save(String key, Entry entry) {
+        InventoryService service = entry.service;
+        if (service.getVersion() == entry.savedVersion) {
+            return true;
+        }
+        InventoryService.SavedState state = service.savedState();
+
+        try {
+            Files.createDirectories(directory);
+
+            // equipment først: går det galt imellem de to filer, ligger et item der lige er
+            // equippet måske begge steder, men det forsvinder aldrig
+            boolean ok = true;
+            Path equipmentFile = directory.resolve(key + EQUIPMENT_SUFFIX);
+            if (state.equipment().isEmpty()) {
+                Files.deleteIfExists(equipmentFile);
+            } else {
+                ok = InventoryFileHandler.saveEquipment(state.equipment(), equipmentFile.toString());
+            }
+
+            ok = ok && InventoryFileHandler.save(state.inventory(),
+                    directory.resolve(key + INVENTORY_SUFFIX).toString(), false);
+
+            if (ok) {
+                entry.savedVersion = state.version();
+            }
+            return ok;
+
+        } catch (IOException | InvalidPathException e) {
+            return false;
+        }
+    }
+
+    // --- filnavne ---
+    // Navnet (trimmet, små bogstaver) bruges som filnavn. Bogstaver, tal, '-' og '_' står som de er,
+    // alt andet skrives som %XX pr. UTF-8 byte, så ingen navne kan pege ud af mappen.
+
+    private static String key(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        byte[] bytes = name.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder(bytes.length);
+        for (byte b : bytes) {
+            int c = b & 0xFF;
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                sb.append((char) c);
+            } else {
+                sb.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Omvendt af key(). null hvis filnavnet ikke er lavet af key() (fx en fremmed fil).
+    private static String decode(String key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char ch = key.charAt(i);
+            if (ch == '%') {
+                if (i + 2 >= key.length()) return null;
+                int hi = Character.digit(key.charAt(i + 1), 16);
+                int lo = Character.digit(key.charAt(i + 2), 16);
+                if (hi < 0 || lo < 0) return null;
+                bytes.write((hi << 4) | lo);
+                i += 2;
+            } else {
+                bytes.write(ch);
+            }
+        }
+        String name = bytes.toString(StandardCharsets.UTF_8);
+        return name.isBlank() ? null : name;
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import domain.Inventory;
+import domain.TradeOffer;
+import domain.TradeResult;
+
+// Handel mellem spillere: flytter items og dele af consumable-stacks mellem to spilleres
+// inventories i ét atomisk skridt (se Inventory.trade) – enten flytter alt, eller intet.
+//
+// Begge services låses (samme lås som deres egne ændrings-metoder) i fast rækkefølge, så
+// autosave, save og journal aldrig ser kun den ene halvdel af en handel, og to handler i
+// modsat retning ikke kan låse hinanden fast.
+public class TradeService {
+
+    private TradeService() { }
+
+    // first giver fromFirst, second giver fromSecond
+    public static String trade(InventoryService first, TradeOffer fromFirst,
+                               InventoryService second, TradeOffer fromSecond) {
+        if (first == null || second == null || fromFirst == null || fromSecond == null) {
+            return "Trade could not be completed.";
+        }
+        if (first == second) {
+            return "A player cannot trade with themselves.";
+        }
+        if (fromFirst.isEmpty() && fromSecond.isEmpty()) {
+            return "Nothing to trade.";
+        }
+
+        InventoryService lower = (first.lockOrder < second.lockOrder) ? first : second;
+        InventoryService upper = (lower == first) ? second : first;
+
+        synchronized (lower) {
+            synchronized (upper) {
+                Inventory firstInventory = first.getInventory();
+                Inventory secondInventory = second.getInventory();
+
+                TradeResult result = Inventory.trade(firstInventory, fromFirst, secondInventory, fromSecond);
+                if (result.isCompleted()) {
+                    first.traded(result.getChanges(firstInventory));
+                    second.traded(result.getChanges(secondInventory));
+                    return "Trade completed!";
+                }
+
+                String name = (result.getBlockedBy() == firstInventory)
+                        ? first.getPlayer().getName()
+                        : second.getPlayer().getName();
+
+                return switch (result.getOutcome()) {
+                    case INVALID -> name + " does not have the offered items.";
+                    case NO_SLOT -> name + " does not have enough free slots.";
+                    case TOO_HEAVY -> name + " cannot carry that much weight.";
+                    case COMPLETED -> "Trade completed!";
+                };
+            }
+        }
+    }
+
+    // Envejs: from giver offer til to
+    public static String transfer(InventoryService from, InventoryService to, TradeOffer offer) {
+        return trade(from, offer, to, new TradeOffer());
+    }
+}
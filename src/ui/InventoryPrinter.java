@@ -10,7 +10,22 @@ public class InventoryPrinter {
     // Returnerer en teksttabel med alle items og samlet status (vægt, slots).
     // Tabellen er bevidst lavet i klassisk text-adventure / RPG-stil
     // med lodrette skillelinjer, så kolonnerne er tydelige i konsollen.
+    // Tegnes fra et snapshot, så tabel og status-linje viser samme øjeblik.
     public static String format(Inventory inventory) {
+        return format(inventory.snapshot());
+    }
+
+    public static String format(InventorySnapshot snapshot) {
+        return format(snapshot, snapshot.getItems());
+    }
+
+    // Samme tabel, men items vises i den givne rækkefølge (fx en sorteret visning).
+    // Status-linjen i bunden kommer fra et snapshot af selve inventory.
+    public static String format(Inventory inventory, Iterable<Item> items) {
+        return format(inventory.snapshot(), items);
+    }
+
+    private static String format(InventorySnapshot inventory, Iterable<Item> items) {
         StringBuilder sb = new StringBuilder();
 
         sb.append("====== INVENTORY OVERVIEW ======\n");
@@ -21,13 +36,13 @@ public class InventoryPrinter {
         sb.append("| No | Name                 | Type       | Rarity     | Weight |\n");
         sb.append("+----+----------------------+------------+------------+--------+\n");
 
-        if (inventory.getItems().isEmpty()) {
+        if (inventory.isEmpty()) {
             // Vis tom inventory på en pæn måde i tabellen
             sb.append("|    | Inventory is empty                                      |\n");
         } else {
             int index = 1;
 
-            for (Item item : inventory.getItems()) {
+            for (Item item : items) {
 
                 // lille UI-hjælp: vis stack direkte i navnet for consumables
                 // fx "Healing Potion x5"
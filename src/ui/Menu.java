@@ -11,6 +11,7 @@ import exceptions.NegativeValues;
 import service.InventoryService;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Scanner;
 
@@ -43,10 +44,11 @@ public class Menu {
             ConsoleUI.option(5, "Unlock slots");
             ConsoleUI.option(6, "Save inventory");
             ConsoleUI.option(7, "Load inventory");
-            ConsoleUI.option(8, "Exit");
+            ConsoleUI.option(8, "Autosave");
+            ConsoleUI.option(9, "Exit");
             ConsoleUI.footer();
 
-            int choice = readMenuChoice(1, 8);
+            int choice = readMenuChoice(1, 9);
 
             switch (choice) {
                 case 1 -> inventoryMenu();
@@ -56,7 +58,12 @@ public class Menu {
                 case 5 -> unlockSlotsMenu();
                 case 6 -> saveInvToFile();
                 case 7 -> loadInvFromFile();
-                case 8 -> {
+                case 8 -> autosaveMenu();
+                case 9 -> {
+                    // sidste autosave, så ændringer fra det sidste interval ikke går tabt
+                    if (!service.stopAutosave()) {
+                        ConsoleUI.message("Warning: the last autosave failed.");
+                    }
                     ConsoleUI.message("Exiting...");
                     return;
                 }
@@ -116,10 +123,11 @@ public class Menu {
             ConsoleUI.option(3, "Filter by type");
             ConsoleUI.option(4, "Filter by weight range");
             ConsoleUI.option(5, "Filter by rarity");
-            ConsoleUI.option(6, "Back");
+            ConsoleUI.option(6, "Combined search");
+            ConsoleUI.option(7, "Back");
             ConsoleUI.footer();
 
-            int choice = readMenuChoice(1, 6);
+            int choice = readMenuChoice(1, 7);
 
             switch (choice) {
                 case 1 -> searchItem();
@@ -127,7 +135,8 @@ public class Menu {
                 case 3 -> handleFilterByType();
                 case 4 -> handleFilterByWeightRange();
                 case 5 -> handleFilterByRarity();
-                case 6 -> { return; }
+                case 6 -> handleCombinedSearch();
+                case 7 -> { return; }
             }
         }
     }
@@ -502,18 +511,32 @@ public class Menu {
         ConsoleUI.option(2, "Weight");
         ConsoleUI.option(3, "Type");
         ConsoleUI.option(4, "Rarity");
+        ConsoleUI.option(5, "Type, then rarity");
+        ConsoleUI.option(6, "Rarity (best first), then name");
         ConsoleUI.footer();
 
-        int choice = readMenuChoice(1, 4);
+        int choice = readMenuChoice(1, 6);
+
+        Comparator<Item> order = switch (choice) {
+            case 1 -> ItemSorter.BY_NAME;
+            case 2 -> ItemSorter.BY_WEIGHT;
+            case 3 -> ItemSorter.BY_TYPE;
+            case 4 -> ItemSorter.BY_RARITY;
+            case 5 -> ItemSorter.BY_TYPE_THEN_RARITY;
+            default -> ItemSorter.BY_RARITY_DESC_THEN_NAME;
+        };
 
-        switch (choice) {
-            case 1 -> service.sortByName();
-            case 2 -> service.sortByWeight();
-            case 3 -> service.sortByType();
-            case 4 -> service.sortByRarity();
+        // Vis først en sorteret visning – spillerens egen rækkefølge røres ikke
+        System.out.println();
+        System.out.println("Player: " + player.getName());
+        try (SortedItemView view = service.getSortedView(order)) {
+            System.out.print(InventoryPrinter.format(service.getInventory(), view));
         }
 
-        showInventory();
+        if (askYesNo("Keep this order in your inventory?")) {
+            service.sortBy(order);
+            ConsoleUI.message("Inventory has been sorted.");
+        }
         pause();
     }
 
@@ -558,6 +581,31 @@ public class Menu {
         }
     }
 
+    // Slår autosave til/fra. Når den er slået til, vises status (antal saves, varighed, fejl).
+    private void autosaveMenu() {
+        ConsoleUI.header("AUTOSAVE");
+
+        if (service.isAutosaving()) {
+            System.out.println(service.getAutosaveStatus());
+
+            if (askYesNo("Turn off autosave?")) {
+                boolean ok = service.stopAutosave();
+                ConsoleUI.message(ok ? "Autosave is off." : "Autosave is off, but the last save failed.");
+            }
+        } else {
+            System.out.print("Filename to autosave to (e.g. P1_Inv.txt): ");
+            String name = input.nextLine().trim();
+
+            if (service.startAutosave(name)) {
+                ConsoleUI.message("Autosave is on. Changes are saved in the background every "
+                        + (InventoryService.AUTOSAVE_INTERVAL_MILLIS / 1000) + " seconds.");
+            } else {
+                ConsoleUI.message("Could not start autosave (invalid path or write error).");
+            }
+        }
+        pause();
+    }
+
     public void unlockSlotsMenu() {
         while (true) {
             ConsoleUI.header("UNLOCK SLOTS");
@@ -639,6 +687,27 @@ public class Menu {
         pause();
     }
 
+    // Alle felter er valgfrie – tryk Enter for at springe et felt over.
+    // Service samler det hele til én søgning i stedet for flere filtre efter hinanden.
+    private void handleCombinedSearch() {
+        System.out.println("Leave a field empty to skip it.");
+
+        System.out.print("Name contains: ");
+        String text = input.nextLine().trim();
+
+        ItemType type = readOptionalEnum(ItemType.class, "Type (WEAPON/ARMOUR/CONSUMABLE): ");
+        Rarity minRarity = readOptionalEnum(Rarity.class, "Minimum rarity (" + options(Rarity.class) + "): ");
+
+        System.out.print("Min weight: ");
+        Double min = readOptionalDouble();
+        System.out.print("Max weight: ");
+        Double max = readOptionalDouble();
+
+        List<Item> results = service.search(text, type, minRarity, min, max);
+        printResults("RESULTS", results);
+        pause();
+    }
+
     private void printResults(String title, List<Item> items) {
         System.out.println(ItemTablePrinter.format(title, items));
     }
@@ -695,6 +764,54 @@ public class Menu {
         }
     }
 
+    // Som readDouble, men tom linje giver null (feltet springes over)
+    private Double readOptionalDouble() {
+        while (true) {
+            String line = input.nextLine().trim().replace(',', '.');
+
+            if (line.isEmpty()) {
+                return null;
+            }
+
+            try {
+                return Double.parseDouble(line);
+            } catch (NumberFormatException e) {
+                System.out.print("Please enter a valid number (or leave empty): ");
+            }
+        }
+    }
+
+    // Som readEnum, men tom linje giver null (feltet springes over)
+    private <T extends Enum<T>> T readOptionalEnum(Class<T> enumClass, String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String inputText = input.nextLine().trim();
+
+            if (inputText.isEmpty()) {
+                return null;
+            }
+
+            try {
+                return Enum.valueOf(enumClass, inputText
+                        .replace(" ", "_")
+                        .replace("-", "_")
+                        .toUpperCase());
+            } catch (IllegalArgumentException e) {
+                ConsoleUI.message("Invalid input. Try again.");
+            }
+        }
+    }
+
+    // Alle værdier i enum'en til en prompt, fx "COMMON/UNCOMMON/RARE/EPIC/LEGENDARY"
+    private static <T extends Enum<T>> String options(Class<T> enumClass) {
+        StringBuilder sb = new StringBuilder();
+        for (T value : enumClass.getEnumConstants()) {
+            if (sb.length() > 0) sb.append('/');
+            sb.append(value.name());
+        }
+        return sb.toString();
+    }
+
     private <T extends Enum<T>> T readEnum(Class<T> enumClass, String prompt) {
         while (true) {
             System.out.print(prompt);
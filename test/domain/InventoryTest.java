@@ -0,0 +1,479 @@
+package domain;
+
+import domain.enums.AddOutcome;
+import domain.enums.ArmourSlot;
+import domain.enums.HandType;
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+import domain.enums.TradeOutcome;
+import exceptions.MaxWeightReached;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryTest {
+
+    private static Inventory inventory() {
+        return new Inventory(100, 10, 10);
+    }
+
+    // --- addItem: et item kan kun ligge ét sted ---
+
+    @Test
+    void addingSameItemTwiceIsRejected() {
+        Inventory inventory = inventory();
+        Weapon sword = new Weapon("Sword", Rarity.COMMON, 5, 10, HandType.ONE_HAND);
+
+        assertTrue(inventory.addItem(sword));
+        assertFalse(inventory.addItem(sword));
+
+        assertEquals(1, inventory.size());
+        assertEquals(5, inventory.getTotalWeight(), 1e-9);
+
+        // ingen død slot: item kan fjernes, og så er inventory tomt
+        assertTrue(inventory.removeItem(sword));
+        assertTrue(inventory.isEmpty());
+        assertEquals(0, inventory.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    void addingSameConsumableTwiceDoesNotStackOnItself() {
+        Inventory inventory = inventory();
+        Consumable potion = new Consumable("Potion", Rarity.COMMON, 1, 3);
+
+        assertTrue(inventory.addItem(potion));
+        assertFalse(inventory.addItem(potion));
+
+        assertEquals(3, potion.getStackSize());
+        assertEquals(3, inventory.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    void itemOwnedByAnotherInventoryIsRejected() {
+        Inventory first = inventory();
+        Inventory second = inventory();
+        Weapon sword = new Weapon("Sword", Rarity.COMMON, 5, 10, HandType.ONE_HAND);
+        assertTrue(first.addItem(sword));
+
+        assertFalse(second.addItem(sword));
+
+        assertTrue(second.isEmpty());
+        assertEquals(0, second.getTotalWeight(), 1e-9);
+
+        // første inventory ejer stadig item, og vægten følger med når det ændres og fjernes
+        assertSame(sword, first.findItemByName("Sword"));
+        sword.setWeight(7);
+        assertEquals(7, first.getTotalWeight(), 1e-9);
+        assertTrue(first.removeItem(sword));
+        assertEquals(0, first.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    void consumableOwnedByAnotherInventoryIsNotStacked() {
+        Inventory first = inventory();
+        Inventory second = inventory();
+        Consumable potion = new Consumable("Potion", Rarity.COMMON, 1, 3);
+        assertTrue(first.addItem(potion));
+        assertTrue(second.addItem(new Consumable("Potion", Rarity.COMMON, 1, 2)));
+
+        assertFalse(second.addItem(potion));
+
+        assertEquals(2, ((Consumable) second.findItemByName("Potion")).getStackSize());
+        assertEquals(2, second.getTotalWeight(), 1e-9);
+        assertEquals(3, first.getTotalWeight(), 1e-9);
+    }
+
+    // --- stacking: stacken beholder sin egen vægt pr. stk. ---
+    // Stack på 1 x 5 kg i et inventory på max 10 kg: 3 enheder mere vejer 3 x 5 = 15 kg,
+    // selvom den indkommende kopi kun vejer 1 kg pr. stk.
+
+    private static Inventory heavyStack() {
+        Inventory inventory = new Inventory(10, 10, 10);
+        assertTrue(inventory.addItem(new Consumable("Potion", Rarity.COMMON, 5, 1)));
+        return inventory;
+    }
+
+    private static Consumable lightPotions() {
+        return new Consumable("Potion", Rarity.COMMON, 1, 3);
+    }
+
+    @Test
+    void addItemChecksStackingWeightWithTheStacksUnitWeight() {
+        Inventory inventory = heavyStack();
+
+        assertThrows(MaxWeightReached.class, () -> inventory.addItem(lightPotions()));
+        assertEquals(5, inventory.getTotalWeight(), 1e-9);
+
+        // omvendt: tunge kopier på en let stack koster kun stackens vægt
+        Inventory light = new Inventory(10, 10, 10);
+        light.addItem(new Consumable("Potion", Rarity.COMMON, 1, 1));
+        assertTrue(light.addItem(new Consumable("Potion", Rarity.COMMON, 5, 3)));
+        assertEquals(4, light.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    void addItemsChecksStackingWeightWithTheStacksUnitWeight() {
+        Inventory inventory = heavyStack();
+
+        BatchAddResult result = inventory.addItems(List.of(lightPotions()));
+        assertFalse(result.isApplied());
+        assertEquals(AddOutcome.TOO_HEAVY, result.getOutcomes().get(0));
+        assertEquals(5, inventory.getTotalWeight(), 1e-9);
+
+        // stacking inden for batchen bruger den første stacks vægt
+        Inventory empty = new Inventory(10, 10, 10);
+        BatchAddResult batch = empty.addItems(List.of(
+                new Consumable("Elixir", Rarity.COMMON, 5, 1), new Consumable("Elixir", Rarity.COMMON, 1, 2)));
+        assertFalse(batch.isApplied());
+        assertEquals(AddOutcome.TOO_HEAVY, batch.getOutcomes().get(1));
+        assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    void tradeChecksStackingWeightWithTheStacksUnitWeight() {
+        Inventory inventory = heavyStack();
+        Inventory other = new Inventory(100, 10, 10);
+        Consumable potions = lightPotions();
+        assertTrue(other.addItem(potions));
+
+        TradeResult result = Inventory.transfer(other, inventory, new TradeOffer().item(potions));
+
+        assertEquals(TradeOutcome.TOO_HEAVY, result.getOutcome());
+        assertEquals(5, inventory.getTotalWeight(), 1e-9);
+        assertEquals(3, other.getTotalWeight(), 1e-9);
+    }
+
+    // --- consume/restock ---
+
+    @Test
+    void consumeAndRestockRejectNull() {
+        Inventory inventory = inventory();
+
+        assertEquals(-1, inventory.consume(null, 1));
+        assertEquals(-1, inventory.restock(null, 1));
+    }
+
+    // --- sorterede visninger ---
+
+    @Test
+    void sortedViewFollowsChangesToFieldsOutsideTheIndex() {
+        Inventory inventory = inventory();
+        Consumable potion = new Consumable("Potion", Rarity.COMMON, 1, 5);
+        Consumable bread = new Consumable("Bread", Rarity.COMMON, 1, 2);
+        inventory.addItem(potion);
+        inventory.addItem(bread);
+        SortedItemView byStack = inventory.sortedView(Comparator.comparingDouble(Item::getStackWeight));
+        assertEquals(List.of(bread, potion), byStack.toList());
+
+        assertEquals(1, inventory.consume(potion, 4));
+        assertEquals(List.of(potion, bread), byStack.toList());
+        byStack.close();
+    }
+
+    @Test
+    void closedViewIsReleased() {
+        Inventory inventory = inventory();
+        Weapon sword = new Weapon("Sword", Rarity.COMMON, 5, 10, HandType.ONE_HAND);
+        inventory.addItem(sword);
+        Comparator<Item> order = Comparator.comparing(Item::getName);
+
+        // delt visning: først når begge har lukket, slippes den
+        SortedItemView first = inventory.sortedView(order);
+        SortedItemView second = inventory.sortedView(order);
+        assertSame(first, second);
+        first.close();
+        assertEquals(1, second.size());
+        second.close();
+        assertTrue(second.isEmpty());
+
+        inventory.addItem(new Weapon("Axe", Rarity.COMMON, 5, 10, HandType.ONE_HAND));
+        assertTrue(second.isEmpty());
+        SortedItemView fresh = inventory.sortedView(order);
+        assertNotSame(second, fresh);
+        assertEquals(2, fresh.size());
+    }
+
+    // --- kolonne-lager ---
+
+    private static Inventory filled(boolean columnar) {
+        Inventory inventory = new Inventory(1000, 20, 20);
+        if (columnar) inventory.enableColumnarStorage();
+        inventory.addItem(new Weapon("Iron Sword", Rarity.COMMON, 3.5, 10, HandType.ONE_HAND));
+        inventory.addItem(new Weapon("Great Axe", Rarity.RARE, 9.5, 20, HandType.TWO_HAND));
+        inventory.addItem(new Armour("Chainmail", Rarity.UNCOMMON, 7.8, 8, ArmourSlot.CHEST));
+        inventory.addItem(new Armour("Boots", Rarity.COMMON, 1.5, 2, ArmourSlot.FEET));
+        inventory.addItem(new Consumable("Potion", Rarity.COMMON, 0.5, 4));
+        inventory.addItem(new Consumable("Elixir", Rarity.EPIC, 0.2, 1));
+        return inventory;
+    }
+
+    private static List<String> names(List<Item> items) {
+        return items.stream().map(Item::getName).toList();
+    }
+
+    // Kolonnerne erstatter indeksets type/rarity/vægt-buckets: filtre og søgninger skal give det
+    // samme som uden kolonne-lager, også efter ændringer, sortering og replaceWith
+    @Test
+    void columnarStorageGivesSameResultsAsIndex() {
+        Inventory plain = filled(false);
+        Inventory columnar = filled(true);
+        for (Inventory inventory : List.of(plain, columnar)) {
+            inventory.findItemByName("Boots").setWeight(12);
+            inventory.removeItem(inventory.findItemByName("Great Axe"));
+            inventory.sortByWeight();
+        }
+        assertSameResults(plain, columnar);
+
+        Inventory loaded = filled(false);
+        columnar.replaceWith(loaded);
+        assertSameResults(filled(false), columnar);
+    }
+
+    // Kolonnernes vægt følger samme regel som getStackWeight (instanceof Consumable), ikke type-feltet
+    @Test
+    void columnarWeightFollowsStackWeightRule() {
+        Inventory inventory = filled(true);
+        Item plain = new Item("Rock", ItemType.CONSUMABLE, Rarity.COMMON, 2);
+        inventory.addItem(plain);
+        Consumable potion = (Consumable) inventory.findItemByName("Potion");
+        potion.setType(ItemType.WEAPON);
+        plain.setType(ItemType.ARMOUR);
+        potion.setStackSize(3);
+
+        assertEquals(inventory.getTotalWeight(), inventory.recomputeTotalWeight(), 1e-9);
+        assertEquals(26.0, inventory.getTotalWeight(), 1e-9);
+    }
+
+    private static void assertSameResults(Inventory expected, Inventory actual) {
+        assertEquals(names(expected.getItems()), names(actual.getItems()));
+        for (ItemType type : ItemType.values()) {
+            assertEquals(names(expected.findItemsByType(type)), names(actual.findItemsByType(type)));
+        }
+        for (Rarity rarity : Rarity.values()) {
+            assertEquals(names(expected.findItemsByRarity(rarity)), names(actual.findItemsByRarity(rarity)));
+        }
+        assertEquals(names(expected.findItemsByWeight(1, 8)), names(actual.findItemsByWeight(1, 8)));
+        assertEquals(names(expected.query().type(ItemType.ARMOUR).minRarity(Rarity.COMMON).list()),
+                names(actual.query().type(ItemType.ARMOUR).minRarity(Rarity.COMMON).list()));
+        assertEquals(names(expected.query().weightBetween(0, 5).nameContains("o").list()),
+                names(actual.query().weightBetween(0, 5).nameContains("o").list()));
+        assertEquals(expected.getTotalWeight(), actual.getTotalWeight(), 1e-9);
+    }
+
+    // --- snapshots ---
+
+    // Hvert snapshot skal se ud som inventory gjorde da det blev taget, også efter senere
+    // add/remove/stack/feltændring/sortering (både ved indhentning af loggen og ved genopbygning)
+    @Test
+    void snapshotIsUnchangedByLaterChanges() {
+        Inventory inventory = new Inventory(10_000, 500, 500);
+        List<InventorySnapshot> snapshots = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 600; i++) {
+            int op = inventory.isEmpty() ? 0 : random.nextInt(6);
+            List<Item> items = inventory.getItems();
+            Item some = items.isEmpty() ? null : items.get(random.nextInt(items.size()));
+            switch (op) {
+                case 0, 1 -> inventory.addItem((i % 3 == 0)
+                        ? new Consumable("Potion " + i, Rarity.COMMON, 0.5, 2)
+                        : new Weapon("Sword " + i, Rarity.RARE, 1, i, HandType.ONE_HAND));
+                case 2 -> inventory.removeItem(some);
+                case 3 -> some.setName("Renamed " + i);
+                case 4 -> {
+                    if (some instanceof Consumable c) inventory.restock(c, 1);
+                }
+                default -> {
+                    if (i % 40 == 5) inventory.sortBy(ItemSorter.BY_NAME);
+                }
+            }
+            if (i % 7 == 0) {
+                InventorySnapshot snapshot = inventory.snapshot();
+                snapshots.add(snapshot);
+                expected.add(inventory.getItems().toString());
+                assertEquals(inventory.getTotalWeight(), snapshot.getTotalWeight(), 1e-9);
+            }
+        }
+
+        for (int s = 0; s < snapshots.size(); s++) {
+            assertEquals(expected.get(s), snapshots.get(s).getItems().toString(), "snapshot " + s);
+        }
+        assertEquals(inventory.getItems().toString(), inventory.snapshot().getItems().toString());
+    }
+
+    // Items i et snapshot er frosne kopier: alle settere afvises, og listen kan ikke ændres
+    @Test
+    void snapshotItemsRejectMutation() {
+        Inventory inventory = inventory();
+        Weapon sword = new Weapon("Sword", Rarity.COMMON, 2, 5, HandType.ONE_HAND);
+        Consumable potion = new Consumable("Potion", Rarity.COMMON, 1, 3);
+        inventory.addItem(sword);
+        inventory.addItem(potion);
+
+        List<Item> items = inventory.snapshot().getItems();
+        Weapon frozenSword = (Weapon) items.get(0);
+        Consumable frozenPotion = (Consumable) items.get(1);
+        assertNotSame(sword, frozenSword);
+
+        assertThrows(UnsupportedOperationException.class, () -> frozenSword.setName("Other"));
+        assertThrows(UnsupportedOperationException.class, () -> frozenSword.setWeight(9));
+        assertThrows(UnsupportedOperationException.class, () -> frozenSword.setDamage(9));
+        assertThrows(UnsupportedOperationException.class, () -> frozenPotion.setStackSize(9));
+        assertThrows(UnsupportedOperationException.class, () -> frozenPotion.setEffectType("Poison"));
+        assertThrows(UnsupportedOperationException.class, () -> items.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> items.add(sword));
+
+        // de levende items kan stadig ændres, og snapshot'et er uberørt
+        sword.setName("Blade");
+        assertEquals("Sword", frozenSword.getName());
+        assertEquals("Blade", inventory.snapshot().getItems().get(0).getName());
+    }
+
+    // --- InventoryQuery ---
+
+    // Søgningen henter inventory's strukturer når den køres, ikke da den blev bygget
+    @Test
+    void queryReadsInventoryAsItIsWhenRun() {
+        Inventory inventory = filled(false);
+        InventoryQuery rare = inventory.query().minRarity(Rarity.RARE);
+        InventoryQuery light = inventory.query().weightBetween(0, 2);
+
+        inventory.enableColumnarStorage(); // indeksets rarity/vægt-buckets smides væk
+        assertEquals(List.of("Great Axe", "Elixir"), names(rare.list()));
+
+        Inventory loaded = new Inventory(1000, 20, 20);
+        loaded.addItem(new Consumable("Bread", Rarity.COMMON, 0.3, 2));
+        inventory.replaceWith(loaded);
+        assertEquals(List.of("Bread"), names(light.list()));
+        assertEquals(List.of("Bread"), names(light.stream().toList()));
+    }
+
+    // Navne-skønnet tæller items, ikke distinkte navne
+    @Test
+    void nameEstimateCountsItems() {
+        Inventory inventory = inventory();
+        for (int i = 0; i < 4; i++) {
+            inventory.addItem(new Weapon("Sword", Rarity.COMMON, 1, 1, HandType.ONE_HAND));
+        }
+        inventory.addItem(new Weapon("Swordfish", Rarity.COMMON, 1, 1, HandType.ONE_HAND));
+        inventory.addItem(new Weapon("Axe", Rarity.COMMON, 1, 1, HandType.ONE_HAND));
+
+        InventoryIndex index = inventory.queryIndex();
+        assertEquals(5, index.estimateByNameContains("sword"));
+        assertEquals(0, index.estimateByNameContains("bow"));
+        assertEquals(6, index.estimateByNameContains("s"));
+        assertEquals(5, inventory.query().nameContains("sword").list().size());
+    }
+
+    // --- replaceWith ---
+
+    // To inventories der overtager fra hinanden på samme tid, må ikke vente på hinanden i ring
+    @Test
+    void replaceWithInBothDirectionsDoesNotDeadlock() {
+        Inventory first = inventory();
+        Inventory second = inventory();
+        first.enableConcurrentAccess();
+        second.enableConcurrentAccess();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            Thread other = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) second.replaceWith(first);
+            });
+            other.start();
+            for (int i = 0; i < 20_000; i++) first.replaceWith(second);
+            other.join();
+        });
+    }
+
+    // --- consume/restock fra mange tråde (concurrent-mode) ---
+
+    private static final int THREADS = 4;
+    private static final int OPS_PER_THREAD = 20_000;
+
+    // Starter alle tråde på én gang og venter på dem
+    private static void runThreads(int threads, Runnable worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> list = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            list.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                worker.run();
+            }));
+        }
+        list.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : list) {
+            thread.join();
+        }
+    }
+
+    // Skiftevis brugt og lagt til: til sidst er stacken præcis start + lagt til - brugt,
+    // og totalvægten passer med den
+    @Test
+    void concurrentConsumeAndRestockKeepStackAndWeight() throws InterruptedException {
+        Inventory inventory = new Inventory(100_000, 10, 10);
+        inventory.enableConcurrentAccess();
+        Consumable stack = new Consumable("Potion", Rarity.COMMON, 0.25, 1000);
+        inventory.addItem(stack);
+        AtomicInteger used = new AtomicInteger();
+        AtomicInteger added = new AtomicInteger();
+
+        runThreads(THREADS, () -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                if (i % 2 == 1) {
+                    if (inventory.restock(stack, 1) >= 0) added.incrementAndGet();
+                } else if (inventory.consume(stack, 1) >= 0) {
+                    used.incrementAndGet();
+                }
+            }
+        });
+
+        int expected = 1000 + added.get() - used.get();
+        assertEquals(expected, stack.getStackSize());
+        assertEquals(expected * 0.25, inventory.getTotalWeight(), 1e-9);
+    }
+
+    // Tøm stacken fra mange tråde: hver enhed bruges præcis én gang, og kun én tråd fjerner den
+    @Test
+    void concurrentConsumeUsesEachUnitOnce() throws InterruptedException {
+        Inventory inventory = new Inventory(100_000, 10, 10);
+        inventory.enableConcurrentAccess();
+        int units = THREADS * OPS_PER_THREAD / 2;
+        Consumable stack = new Consumable("Potion", Rarity.COMMON, 0.25, units);
+        inventory.addItem(stack);
+        AtomicInteger used = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+
+        runThreads(THREADS, () -> {
+            int left;
+            while ((left = inventory.consume(stack, 1)) >= 0) {
+                used.incrementAndGet();
+                if (left == 0) removed.incrementAndGet();
+            }
+        });
+
+        assertEquals(units, used.get());
+        assertEquals(1, removed.get());
+        assertTrue(inventory.isEmpty());
+        assertEquals(0, inventory.getTotalWeight(), 1e-9);
+    }
+}
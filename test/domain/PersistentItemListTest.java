@@ -0,0 +1,89 @@
+package domain;
+
+import domain.enums.HandType;
+import domain.enums.Rarity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PersistentItemListTest {
+
+    private static Item item(int i) {
+        return new Weapon("W" + i, Rarity.COMMON, 1, i, HandType.ONE_HAND);
+    }
+
+    // Tilfældige plus/with/without sammenlignet med en ArrayList – og alle gamle versioner
+    // skal stadig se ud som da de blev lavet
+    @Test
+    void everyVersionMatchesArrayListAndOlderVersionsAreUnchanged() {
+        Random random = new Random(42);
+        List<PersistentItemList> versions = new ArrayList<>();
+        List<List<Item>> expected = new ArrayList<>();
+
+        PersistentItemList list = PersistentItemList.EMPTY;
+        List<Item> model = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            int op = model.isEmpty() ? 0 : random.nextInt(3);
+            if (op == 0) {
+                Item item = item(i);
+                list = list.plus(item);
+                model.add(item);
+            } else if (op == 1) {
+                int index = random.nextInt(model.size());
+                Item item = item(i);
+                list = list.with(index, item);
+                model.set(index, item);
+            } else {
+                int index = random.nextInt(model.size());
+                list = list.without(index);
+                model.remove(index);
+            }
+            if (i % 50 == 0) {
+                versions.add(list);
+                expected.add(new ArrayList<>(model));
+            }
+        }
+
+        for (int v = 0; v < versions.size(); v++) {
+            assertListEquals(expected.get(v), versions.get(v));
+        }
+        assertListEquals(model, list);
+    }
+
+    @Test
+    void ofKeepsOrder() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) items.add(item(i));
+
+        assertListEquals(items, PersistentItemList.of(items));
+        assertSame(PersistentItemList.EMPTY, PersistentItemList.of(List.of()));
+    }
+
+    @Test
+    void indexOutsideListIsRejected() {
+        PersistentItemList list = PersistentItemList.EMPTY.plus(item(1));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.with(-1, item(2)));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.without(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> PersistentItemList.EMPTY.get(0));
+    }
+
+    // get(i), iterator og size skal give samme items i samme rækkefølge (samme objekter)
+    private static void assertListEquals(List<Item> expected, PersistentItemList actual) {
+        assertEquals(expected.size(), actual.size());
+        int i = 0;
+        for (Item item : actual) {
+            assertSame(expected.get(i), item);
+            assertSame(expected.get(i), actual.get(i));
+            i++;
+        }
+        assertEquals(expected.size(), i);
+    }
+}
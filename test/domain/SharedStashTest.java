@@ -0,0 +1,63 @@
+package domain;
+
+import domain.enums.AddOutcome;
+import domain.enums.Rarity;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SharedStashTest {
+
+    // vægt-tælleren skal altid passe med det der faktisk ligger i lageret
+    private static double storedWeight(SharedStash stash) {
+        double weight = 0;
+        for (Item item : stash.getItems()) {
+            weight += item.getStackWeight();
+        }
+        return weight;
+    }
+
+    // Stacking bruger stackens vægt pr. stk., ikke den indlagte kopis
+    @Test
+    void depositOnStackUsesTheStacksUnitWeight() {
+        SharedStash stash = new SharedStash(10, 10, 4);
+        assertEquals(AddOutcome.ADDED, stash.deposit(new Consumable("Potion", Rarity.COMMON, 5, 1)));
+
+        // 3 lette enheder på en stack af 5 kg pr. stk. = 15 kg -> for tungt
+        assertEquals(AddOutcome.TOO_HEAVY, stash.deposit(new Consumable("Potion", Rarity.COMMON, 1, 3)));
+        assertEquals(5, stash.getTotalWeight(), 1e-9);
+        assertEquals(storedWeight(stash), stash.getTotalWeight(), 1e-9);
+
+        // 1 enhed mere passer (10 kg), uanset kopiens egen vægt
+        assertEquals(AddOutcome.STACKED, stash.deposit(new Consumable("Potion", Rarity.COMMON, 0.5, 1)));
+        assertEquals(10, stash.getTotalWeight(), 1e-9);
+        assertEquals(storedWeight(stash), stash.getTotalWeight(), 1e-9);
+
+        // og tælleren går i 0, når det hele er taget ud igen
+        stash.withdraw("Potion", 2);
+        assertEquals(0, stash.getTotalWeight(), 1e-9);
+        assertEquals(0, stash.getUsedSlots());
+    }
+
+    // withdrawTo giver det item/den stack i target, som fik enhederne
+    @Test
+    void withdrawToReturnsTheItemOrStackItTouched() {
+        SharedStash stash = new SharedStash(100, 10, 4);
+        stash.deposit(new Consumable("Potion", Rarity.COMMON, 1, 5));
+        Inventory target = new Inventory(100, 10, 10);
+
+        BatchAddResult added = stash.withdrawTo(target, "Potion", 2);
+        assertEquals(AddOutcome.ADDED, added.getOutcomes().get(0));
+        assertSame(target.findItemByName("Potion"), added.getHolders().get(0));
+
+        Consumable stack = (Consumable) target.findItemByName("Potion");
+        BatchAddResult stacked = stash.withdrawTo(target, "Potion", 3);
+        assertEquals(AddOutcome.STACKED, stacked.getOutcomes().get(0));
+        assertSame(stack, stacked.getHolders().get(0));
+        assertEquals(5, stack.getStackSize());
+
+        assertNull(stash.withdrawTo(target, "Potion", 1));
+    }
+}
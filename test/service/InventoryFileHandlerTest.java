@@ -0,0 +1,169 @@
+package service;
+
+import domain.Consumable;
+import domain.Inventory;
+import domain.Weapon;
+import domain.enums.HandType;
+import domain.enums.Rarity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryFileHandlerTest {
+
+    // Binær fil med ét våben "Sword": header (8) + settings (16), så string-antal ved 24,
+    // første string-længde ved 28 og item-antal ved 28 + 4 + 5 = 37
+    private static final int STRING_COUNT_OFFSET = 24;
+    private static final int STRING_LENGTH_OFFSET = 28;
+    private static final int ITEM_COUNT_OFFSET = 37;
+
+    @TempDir
+    Path dir;
+
+    private int saved; // løbenummer til filnavne
+
+    @Test
+    void binaryRoundTrip() {
+        String path = savedBinary();
+        Inventory target = new Inventory(100, 10, 10);
+
+        assertTrue(InventoryFileHandler.load(target, path));
+        assertEquals(1, target.size());
+        assertEquals(5, target.getTotalWeight(), 1e-9);
+    }
+
+    // Defekte antal må ikke få load til at allokere efter dem (OutOfMemoryError) – load giver bare false
+    @Test
+    void corruptCountsAreRejected() throws IOException {
+        for (int offset : new int[] {STRING_COUNT_OFFSET, STRING_LENGTH_OFFSET, ITEM_COUNT_OFFSET}) {
+            for (int value : new int[] {Integer.MAX_VALUE, -1}) {
+                String path = savedBinary();
+                writeInt(path, offset, value);
+
+                Inventory target = new Inventory(100, 10, 10);
+                assertFalse(InventoryFileHandler.load(target, path), "offset " + offset + " = " + value);
+                assertTrue(target.isEmpty());
+            }
+        }
+    }
+
+    // Load er transaktionel: en fil der ikke kan indlæses, efterlader inventory og settings urørt
+    @Test
+    void failedLoadLeavesInventoryIntact() throws IOException {
+        String tooHeavy = text("maxWeight=10.0",
+                "WEAPON;name=Great Axe;rarity=RARE;weight=9.5;damage=25;hand=TWO_HAND",
+                "WEAPON;name=Iron Sword;rarity=COMMON;weight=3.5;damage=12;hand=ONE_HAND");
+        String broken = text("maxWeight=80.0",
+                "WEAPON;name=Iron Sword;rarity=COMMON;weight=3.5;damage=12;hand=ONE_HAND",
+                "WEAPON;name=Broken;rarity=SHINY;weight=1.0;damage=1;hand=ONE_HAND");
+
+        for (String path : List.of(tooHeavy, broken)) {
+            Inventory target = new Inventory(100, 10, 10);
+            Weapon sword = new Weapon("Sword", Rarity.COMMON, 5, 10, HandType.ONE_HAND);
+            target.addItem(sword);
+
+            assertFalse(InventoryFileHandler.load(target, path), path);
+            assertFalse(InventoryFileHandler.loadParallel(target, path), path);
+            assertEquals(List.of(sword), target.getItems());
+            assertEquals(100, target.getMaxWeight(), 1e-9);
+            assertEquals(5, target.getTotalWeight(), 1e-9);
+            assertEquals(0, target.indexOf(sword));
+        }
+    }
+
+    // --- checksum-headeren ---
+    // Filen har to separate Potion-stacks (lagt ind med restoreItems). Den betroede vej lægger
+    // items ind som de står; den validerende vej (addItems) stacker dem – så antal slots viser vejen.
+
+    @Test
+    void validChecksumTakesTrustedPath() {
+        String path = savedWithTwoPotionStacks();
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            Inventory target = new Inventory(100, 10, 10);
+            assertTrue(parallel ? InventoryFileHandler.loadParallel(target, path) : InventoryFileHandler.load(target, path));
+            assertEquals(3, target.size());
+            assertEquals(10, target.getTotalWeight(), 1e-9);
+        }
+    }
+
+    // Et håndrettet tal med den gamle "# checksum="-header: validerende vej, inkl. vægt- og slot-grænser
+    @Test
+    void staleChecksumFallsBackToValidation() throws IOException {
+        String edited = savedWithTwoPotionStacks();
+        edit(edited, "damage=10", "damage=11");
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            Inventory target = new Inventory(100, 10, 10);
+            assertTrue(parallel ? InventoryFileHandler.loadParallel(target, edited) : InventoryFileHandler.load(target, edited));
+            assertEquals(2, target.size());
+            assertEquals(5, ((Consumable) target.findItemByName("Potion")).getStackSize());
+            assertEquals(11, ((Weapon) target.findItemByName("Sword")).getDamage());
+        }
+
+        String tooHeavy = savedWithTwoPotionStacks();
+        edit(tooHeavy, "damage=10;", "damage=10;weight=96.0;"); // sidste weight vinder
+        String tooFewSlots = savedWithTwoPotionStacks();
+        edit(tooFewSlots, "unlockedSlots=10", "unlockedSlots=1");
+
+        for (String path : List.of(tooHeavy, tooFewSlots)) {
+            Inventory target = new Inventory(100, 10, 10);
+            assertFalse(InventoryFileHandler.load(target, path), path);
+            assertFalse(InventoryFileHandler.loadParallel(target, path), path);
+            assertTrue(target.isEmpty());
+        }
+    }
+
+    private String savedWithTwoPotionStacks() {
+        Inventory inventory = new Inventory(100, 10, 10);
+        assertTrue(inventory.restoreItems(List.of(
+                new Consumable("Potion", Rarity.COMMON, 1, 2),
+                new Weapon("Sword", Rarity.COMMON, 5, 10, HandType.ONE_HAND),
+                new Consumable("Potion", Rarity.COMMON, 1, 3))));
+        String path = dir.resolve("checked" + (++saved) + ".txt").toString();
+        assertTrue(InventoryFileHandler.save(inventory, path));
+        return path;
+    }
+
+    // Retter filens indhold men lader checksum-headeren stå
+    private static void edit(String path, String from, String to) throws IOException {
+        Path file = Path.of(path);
+        String content = Files.readString(file);
+        assertTrue(content.startsWith("# checksum=") && content.contains(from));
+        Files.writeString(file, content.replace(from, to));
+    }
+
+    private String text(String setting, String... items) throws IOException {
+        StringBuilder sb = new StringBuilder("# Inventory settings\n").append(setting).append("\n\n# Items\n");
+        for (String item : items) {
+            sb.append(item).append('\n');
+        }
+        Path path = Files.createTempFile(dir, "inventory", ".txt");
+        Files.writeString(path, sb);
+        return path.toString();
+    }
+
+    private String savedBinary() {
+        Inventory inventory = new Inventory(100, 10, 10);
+        inventory.addItem(new Weapon("Sword", Rarity.COMMON, 5, 10, HandType.ONE_HAND));
+        String path = dir.resolve("inventory.bin").toString();
+        assertTrue(InventoryFileHandler.saveBinary(inventory, path));
+        return path;
+    }
+
+    private static void writeInt(String path, int offset, int value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.seek(offset);
+            file.writeInt(value);
+        }
+    }
+}
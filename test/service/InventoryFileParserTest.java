@@ -0,0 +1,136 @@
+package service;
+
+import domain.Consumable;
+import domain.Inventory;
+import domain.Item;
+import domain.Weapon;
+import domain.enums.HandType;
+import domain.enums.Rarity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryFileParserTest {
+
+    @TempDir
+    Path dir;
+
+    // Gemmer og læser tilbage med både den almindelige og den parallelle loader
+    private List<Inventory> roundTrip(Inventory inventory) {
+        String path = dir.resolve("inventory.txt").toString();
+        assertTrue(InventoryFileHandler.save(inventory, path));
+
+        Inventory loaded = new Inventory(1, 1, 1);
+        Inventory parallel = new Inventory(1, 1, 1);
+        assertTrue(InventoryFileHandler.load(loaded, path));
+        assertTrue(InventoryFileHandler.loadParallel(parallel, path));
+        return List.of(loaded, parallel);
+    }
+
+    // ';', '\', '=' og linjeskift i navn/effekt escapes, så linjen ikke knækker
+    @Test
+    void namesWithSeparatorsSurviveRoundTrip() {
+        Inventory inventory = new Inventory(100, 10, 10);
+        inventory.addItem(new Weapon("Sword; of=Doom", Rarity.RARE, 3, 12, HandType.ONE_HAND));
+        inventory.addItem(new Weapon("C:\\temp\\;blade\\", Rarity.COMMON, 2, 5, HandType.ONE_HAND));
+        inventory.addItem(new Weapon("Two\nlines\r\n", Rarity.COMMON, 1, 1, HandType.TWO_HAND));
+        inventory.addItem(new Weapon("Økse ☃ 𝄞", Rarity.EPIC, 4, 9, HandType.TWO_HAND));
+        Consumable potion = new Consumable("Potion", Rarity.COMMON, 1, 5);
+        potion.setEffectType("Heal;+5\\turn");
+        inventory.addItem(potion);
+
+        for (Inventory loaded : roundTrip(inventory)) {
+            assertEquals(inventory.getItems().toString(), loaded.getItems().toString());
+            assertEquals("Heal;+5\\turn", ((Consumable) loaded.getItems().get(4)).getEffectType());
+        }
+    }
+
+    // Gamle filer kan have '\' i et navn uden escapes – ukendte escapes beholdes som de står
+    @Test
+    void unknownEscapesAreKeptVerbatim() throws IOException {
+        InventoryFileParser parser = new InventoryFileParser();
+        parser.parse(new StringReader("WEAPON;name=C:\\temp\\x;rarity=COMMON;weight=1;damage=1;hand=ONE_HAND"));
+        assertEquals("C:\\temp\\x", parser.items.get(0).getName());
+    }
+
+    // CRLF, blanke linjer og en sidste linje uden linjeskift, via både Reader og char[]
+    @Test
+    void crlfAndMissingTrailingNewline() throws IOException {
+        String text = "# Inventory settings\r\nmaxWeight=50.5\r\nmaxSlots=8\r\nunlockedSlots=4\r\n\r\n"
+                + "# Items\r\n"
+                + "WEAPON;name=Sword;rarity=COMMON;weight=3.5;damage=12;hand=ONE_HAND\r\n"
+                + "CONSUMABLE;name=Potion;rarity=RARE;weight=0.25;effect=Heal;stack=3";
+
+        InventoryFileParser reader = new InventoryFileParser();
+        reader.parse(new StringReader(text));
+        InventoryFileParser chars = new InventoryFileParser();
+        chars.parse(text.toCharArray(), 0, text.length());
+
+        for (InventoryFileParser parser : List.of(reader, chars)) {
+            assertEquals(50.5, parser.maxWeight);
+            assertEquals(8, parser.maxSlots);
+            assertEquals(4, parser.unlockedSlots);
+            assertEquals(2, parser.items.size());
+            assertEquals("Sword", parser.items.get(0).getName());
+            Consumable potion = (Consumable) parser.items.get(1);
+            assertEquals("Heal", potion.getEffectType());
+            assertEquals(3, potion.getStackSize());
+            assertEquals(0.25, potion.getWeight());
+        }
+    }
+
+    // Sidste forekomst af en nøgle vinder, og mellemrum om nøgler/værdier trimmes
+    @Test
+    void lastKeyWinsAndFieldsAreTrimmed() throws IOException {
+        InventoryFileParser parser = new InventoryFileParser();
+        parser.parse(new StringReader(
+                "  WEAPON ; name = Sword ;weight=1; rarity=common ;weight= 2.5 ;damage=3;hand=two hand  \n"));
+
+        Weapon sword = (Weapon) parser.items.get(0);
+        assertEquals("Sword", sword.getName());
+        assertEquals(2.5, sword.getWeight());
+        assertEquals(HandType.TWO_HAND, sword.getHandType());
+    }
+
+    // Vægte der kræver alle cifre (eller eksponent) skal komme præcis tilbage
+    @Test
+    void weightsNeedingFullPrecisionSurviveRoundTrip() {
+        double[] weights = {0.1 + 0.2, 1 / 3.0, Math.PI, 1e-5, 2.5e-4, 0.001, 12345678.9, 9999999.999999, 123.456789};
+        double total = 0;
+        for (double w : weights) total += w;
+
+        Inventory inventory = new Inventory(total + 1, weights.length, weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            assertTrue(inventory.addItem(new Weapon("W" + i, Rarity.COMMON, weights[i], 1, HandType.ONE_HAND)));
+        }
+
+        for (Inventory loaded : roundTrip(inventory)) {
+            assertEquals(inventory.getMaxWeight(), loaded.getMaxWeight());
+            List<Item> items = loaded.getItems();
+            for (int i = 0; i < weights.length; i++) {
+                assertEquals(weights[i], items.get(i).getWeight(), "weight " + i);
+            }
+        }
+    }
+
+    // Den hurtige tal-parser skal give præcis samme resultat som Double/Integer.parseInt
+    @Test
+    void numberParsingMatchesJdk() {
+        for (String text : List.of("0", "3.5", "-2.25", " 7.125 ", "0.30000000000000004", "0.3333333333333333",
+                "3.141592653589793", "1.0E-5", "123456789012345", "1234567890.12345678", "12345678.9")) {
+            char[] buf = text.toCharArray();
+            assertEquals(Double.parseDouble(text), InventoryFileParser.parseDouble(buf, 0, buf.length), text);
+        }
+        for (String text : List.of("0", "12", "-3", " 42 ", "+7", "2147483647", "-2147483648")) {
+            char[] buf = text.toCharArray();
+            assertEquals(Integer.parseInt(text.trim()), InventoryFileParser.parseInt(buf, 0, buf.length), text);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package service;
+
+import domain.Consumable;
+import domain.Inventory;
+import domain.ItemSorter;
+import domain.Weapon;
+import domain.enums.HandType;
+import domain.enums.Rarity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private String path;
+    private Inventory inventory;
+    private InventoryJournal journal;
+
+    // Inventory med to våben og en stack, og en journal der lige er startet (snapshot + BASE)
+    private void start() {
+        path = dir.resolve("inventory.txt").toString();
+        inventory = new Inventory(100, 10, 5);
+        inventory.addItem(new Weapon("Sword", Rarity.COMMON, 4, 10, HandType.ONE_HAND));
+        inventory.addItem(new Consumable("Potion", Rarity.COMMON, 1, 5));
+        inventory.addItem(new Weapon("Axe", Rarity.RARE, 6, 20, HandType.TWO_HAND));
+        journal = InventoryJournal.start(inventory, path);
+        assertNotNull(journal);
+    }
+
+    private Path journalFile() {
+        return Path.of(path + InventoryJournal.SUFFIX);
+    }
+
+    // snapshot + journal skal give præcis det levende inventory
+    private void assertReplaysTo(Inventory expected) {
+        Inventory read = InventoryJournal.read(path, new Inventory(100, 10, 5));
+        assertNotNull(read);
+        assertEquals(expected.getItems().toString(), read.getItems().toString());
+        assertEquals(expected.getUnlockedSlots(), read.getUnlockedSlots());
+        assertEquals(expected.getTotalWeight(), read.getTotalWeight(), 1e-9);
+    }
+
+    private Consumable potion() {
+        return (Consumable) inventory.findItemByName("Potion");
+    }
+
+    @Test
+    void everyRecordTypeIsReplayed() {
+        start();
+
+        Weapon bow = new Weapon("Bow", Rarity.EPIC, 2, 15, HandType.TWO_HAND);
+        inventory.addItem(bow);
+        journal.added(bow);
+
+        int index = inventory.indexOf(inventory.findItemByName("Sword"));
+        inventory.removeItem(inventory.findItemByName("Sword"));
+        journal.removed(index);
+
+        inventory.consume(potion(), 2);
+        journal.stackChanged(potion());
+
+        inventory.unlockInventorySlots(3);
+        journal.unlocked(3);
+
+        inventory.sortBy(ItemSorter.BY_NAME);
+        journal.sorted(ItemSorter.BY_NAME);
+
+        journal.close();
+        assertReplaysTo(inventory);
+    }
+
+    // En halvt skrevet sidste linje (crash midt i en record) ignoreres
+    @Test
+    void tornLastLineIsIgnored() throws IOException {
+        start();
+        inventory.consume(potion(), 1);
+        journal.stackChanged(potion());
+        journal.close();
+
+        Files.writeString(journalFile(), "ADD WEAPON;name=Half;rarity=CO",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertReplaysTo(inventory);
+    }
+
+    // Er snapshot'et skrevet om bag journalens ryg, hører journalen til et andet snapshot og ignoreres
+    @Test
+    void journalForAnotherSnapshotIsIgnored() {
+        start();
+        inventory.consume(potion(), 1);
+        journal.stackChanged(potion());
+        journal.close();
+
+        Inventory other = new Inventory(100, 10, 5);
+        other.addItem(new Weapon("Club", Rarity.COMMON, 3, 5, HandType.ONE_HAND));
+        assertTrue(InventoryFileHandler.save(other, path));
+        assertReplaysTo(other);
+    }
+
+    // Efter COMPACT_AFTER records foldes journalen ind i et nyt snapshot og starter forfra
+    @Test
+    void journalIsCompactedAfterThreshold() throws IOException {
+        start();
+        for (int i = 0; i < InventoryJournal.COMPACT_AFTER + 3; i++) {
+            Consumable stack = potion();
+            if (i % 2 == 0) inventory.restock(stack, 1); else inventory.consume(stack, 1);
+            journal.stackChanged(stack);
+        }
+        journal.close();
+
+        List<String> lines = Files.readAllLines(journalFile());
+        assertEquals(4, lines.size()); // ny BASE + de 3 records efter compaction
+        assertTrue(lines.get(0).startsWith("BASE "));
+        assertReplaysTo(inventory);
+    }
+}
@@ -0,0 +1,284 @@
+package service;
+
+import domain.Consumable;
+import domain.Inventory;
+import domain.Item;
+import domain.Player;
+import domain.SharedStash;
+import domain.TradeOffer;
+import domain.enums.ArmourSlot;
+import domain.enums.HandType;
+import domain.enums.ItemType;
+import domain.enums.Rarity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private static InventoryService service(Inventory inventory) {
+        Player player = new Player("Test");
+        player.setInventory(inventory);
+        return new InventoryService(player);
+    }
+
+    private static InventoryService withPotionsAndSword() {
+        InventoryService service = service(new Inventory(100, 10, 10));
+        service.addItem("Potion", ItemType.CONSUMABLE, Rarity.COMMON, 1,
+                null, null, null, null, "HEAL", 5);
+        service.addItem("Sword", ItemType.WEAPON, Rarity.COMMON, 4,
+                10, HandType.ONE_HAND, null, null, null, null);
+        return service;
+    }
+
+    private static List<String> names(Inventory inventory) {
+        return inventory.getItems().stream().map(Item::getName).toList();
+    }
+
+    // --- useConsumable fra mange tråde ---
+
+    // Hver enhed bruges præcis én gang, også når mange tråde bruger af samme stack
+    @Test
+    void concurrentUseConsumableUsesEachUnitOnce() throws InterruptedException {
+        int units = 20_000;
+        InventoryService service = service(new Inventory(100_000, 10, 10));
+        service.addItem("Potion", ItemType.CONSUMABLE, Rarity.COMMON, 0.25,
+                null, null, null, null, "HEAL", units);
+        AtomicInteger used = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                while (service.useConsumable("Potion").startsWith("Used consumable")) {
+                    used.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(units, used.get());
+        assertTrue(service.isInventoryEmpty());
+    }
+
+    // --- delt lager ---
+
+    @Test
+    void depositPartOfStackMovesExactlyThoseUnits() {
+        InventoryService service = withPotionsAndSword();
+        Inventory inventory = service.getPlayer().getInventory();
+        SharedStash stash = new SharedStash(100, 10, 4);
+
+        assertEquals("Item has been deposited in the stash!", service.depositToStash(stash, "Potion", 2));
+
+        assertEquals(3, ((Consumable) inventory.findItemByName("Potion")).getStackSize());
+        assertEquals(2, stash.count("Potion"));
+        assertEquals(7, inventory.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    void rejectedDepositLeavesInventoryAsItWas() {
+        InventoryService service = withPotionsAndSword();
+        Inventory inventory = service.getPlayer().getInventory();
+        SharedStash full = new SharedStash(1, 10, 4);
+
+        // del af stacken: enhederne lægges tilbage på stacken
+        assertTrue(service.depositToStash(full, "Potion", 2).contains("cannot hold more weight"));
+        assertEquals(5, ((Consumable) inventory.findItemByName("Potion")).getStackSize());
+
+        // hele items: lægges tilbage på deres gamle plads
+        assertTrue(service.depositToStash(full, "Potion", 5).contains("cannot hold more weight"));
+        assertEquals(List.of("Potion", "Sword"), names(inventory));
+        assertTrue(service.depositToStash(full, "Sword", 1).contains("cannot hold more weight"));
+        assertEquals(List.of("Potion", "Sword"), names(inventory));
+        assertEquals(5, ((Consumable) inventory.findItemByName("Potion")).getStackSize());
+        assertNotNull(inventory.findItemByName("Sword"));
+
+        assertEquals(2, inventory.size());
+        assertEquals(9, inventory.getTotalWeight(), 1e-9);
+        assertEquals(0, full.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    void depositOfMoreThanTheStackIsInvalid() {
+        InventoryService service = withPotionsAndSword();
+
+        assertEquals("Invalid amount.", service.depositToStash(new SharedStash(100, 10, 4), "Potion", 6));
+        assertEquals("Invalid amount.", service.depositToStash(new SharedStash(100, 10, 4), "Sword", 2));
+        assertEquals(5, ((Consumable) service.getPlayer().getInventory().findItemByName("Potion")).getStackSize());
+    }
+
+    // --- save ---
+
+    // Equipment og inventory kopieres i samme skridt: et equippet item står i præcis én af dem
+    @Test
+    void savedStateHasEachItemExactlyOnce() {
+        InventoryService service = withPotionsAndSword();
+        service.equip(service.findItemByName("Sword"));
+
+        InventoryService.SavedState state = service.savedState();
+        assertEquals("Sword", state.equipment().getMainHand().getName());
+        assertEquals(List.of("Potion"), state.inventory().getItems().stream().map(Item::getName).toList());
+        assertEquals(service.getVersion(), state.version());
+
+        service.unequip("mainhand");
+        state = service.savedState();
+        assertTrue(state.equipment().isEmpty());
+        assertEquals(2, state.inventory().getItems().size());
+    }
+
+    // --- journal ---
+
+    // En almindelig save til journalens snapshot må ikke gøre journalen ugyldig
+    @Test
+    void saveToJournalledPathKeepsLaterChanges() {
+        InventoryService service = withPotionsAndSword();
+        String path = dir.resolve("inventory.txt").toString();
+        assertTrue(service.startJournal(path));
+        service.useConsumable("Potion");   // snapshot'et er nu forskelligt fra journalens BASE
+
+        assertTrue(service.save(path));
+        service.addItem("Shield", ItemType.ARMOUR, Rarity.RARE, 2,
+                null, null, 5, ArmourSlot.CHEST, null, null);
+        service.stopJournal();
+
+        InventoryService loaded = service(new Inventory(100, 10, 10));
+        assertTrue(loaded.load(path));
+        Inventory inventory = loaded.getPlayer().getInventory();
+        assertNotNull(inventory.findItemByName("Shield"));
+        assertEquals(3, inventory.size());
+        assertEquals(4, ((Consumable) inventory.findItemByName("Potion")).getStackSize());
+    }
+
+    // En handel journaliseres som records på hver side (ingen nyt snapshot pr. handel),
+    // og begge inventories kan genskabes fra snapshot + journal
+    @Test
+    void tradesAreJournalledAsRecords() throws IOException {
+        InventoryService first = withPotionsAndSword();
+        InventoryService second = service(new Inventory(100, 10, 10));
+        second.addItem("Potion", ItemType.CONSUMABLE, Rarity.COMMON, 1,
+                null, null, null, null, "HEAL", 1);
+        second.addItem("Shield", ItemType.ARMOUR, Rarity.RARE, 2,
+                null, null, 5, ArmourSlot.CHEST, null, null);
+        second.addItem("Bread", ItemType.CONSUMABLE, Rarity.COMMON, 0.5,
+                null, null, null, null, "FOOD", 4);
+        String firstPath = dir.resolve("first.txt").toString();
+        String secondPath = dir.resolve("second.txt").toString();
+        assertTrue(first.startJournal(firstPath));
+        assertTrue(second.startJournal(secondPath));
+
+        // hele våbnet + del af en stack den ene vej, hele stacks og et helt item den anden vej
+        assertEquals("Trade completed!", TradeService.trade(
+                first, new TradeOffer().item(first.findItemByName("Sword"))
+                        .stack((Consumable) first.findItemByName("Potion"), 2),
+                second, new TradeOffer().item(second.findItemByName("Shield"))
+                        .item(second.findItemByName("Bread"))));
+        assertEquals("Trade completed!", TradeService.transfer(
+                second, first, new TradeOffer().item(second.findItemByName("Potion"))));
+        first.useConsumable("Potion");
+
+        // snapshot'et er ikke skrevet om: journalen har stadig kun én BASE
+        List<String> lines = Files.readAllLines(Path.of(firstPath + ".journal"));
+        assertEquals(1, lines.stream().filter(l -> l.startsWith("BASE ")).count());
+        assertTrue(lines.size() > 4);
+
+        first.stopJournal();
+        second.stopJournal();
+        for (InventoryService live : List.of(first, second)) {
+            String path = (live == first) ? firstPath : secondPath;
+            InventoryService loaded = service(new Inventory(100, 10, 10));
+            assertTrue(loaded.load(path));
+            assertEquals(live.getItems().toString(), loaded.getItems().toString());
+        }
+    }
+
+    // --- autosave ---
+
+    private static String loadedItems(String path) {
+        InventoryService loaded = service(new Inventory(100, 10, 10));
+        assertTrue(loaded.load(path));
+        return loaded.getItems().toString();
+    }
+
+    // Ændringer inden for et interval bliver ikke skrevet enkeltvis, men stopAutosave gemmer
+    // den seneste version før tråden stopper
+    @Test
+    void autosaveCoalescesChangesAndFlushesOnStop() {
+        InventoryService service = withPotionsAndSword();
+        String path = dir.resolve("autosave.txt").toString();
+        String started = service.getItems().toString();
+
+        assertTrue(service.startAutosave(path, 3_600_000)); // første save sker med det samme
+        service.useConsumable("Potion");
+        service.addItem("Shield", ItemType.ARMOUR, Rarity.RARE, 6,
+                null, null, 3, ArmourSlot.CHEST, null, null);
+        service.removeItemByName("Sword");
+        service.sortByName();
+        assertNotNull(service.findItemByName("Shield"));
+
+        assertTrue(service.getAutosaveStatus().contains(": 1 saves"), service.getAutosaveStatus());
+        assertEquals(started, loadedItems(path));
+
+        assertTrue(service.stopAutosave());
+        assertFalse(service.isAutosaving());
+        assertEquals(service.getItems().toString(), loadedItems(path));
+    }
+
+    // Med et kort interval skriver baggrundstråden undervejs, og filen ender alligevel på seneste version
+    @Test
+    void autosaveEndsOnLatestVersion() {
+        InventoryService service = withPotionsAndSword();
+        String path = dir.resolve("autosave.txt").toString();
+
+        assertTrue(service.startAutosave(path, 1));
+        for (int i = 0; i < 200; i++) {
+            if (i % 2 == 0) {
+                service.addItem("Arrow", ItemType.CONSUMABLE, Rarity.COMMON, 0.1,
+                        null, null, null, null, "HIT", 1);
+            } else {
+                service.useConsumable("Arrow");
+            }
+        }
+        service.addItem("Arrow", ItemType.CONSUMABLE, Rarity.COMMON, 0.1,
+                null, null, null, null, "HIT", 3);
+
+        assertTrue(service.stopAutosave());
+        assertEquals(service.getItems().toString(), loadedItems(path));
+    }
+
+    // Autosave og journal må ikke skrive til samme snapshot-fil
+    @Test
+    void autosaveAndJournalCannotShareAFile() {
+        InventoryService service = withPotionsAndSword();
+        String path = dir.resolve("inventory.txt").toString();
+        String other = dir.resolve("autosave.txt").toString();
+
+        assertTrue(service.startJournal(path));
+        assertFalse(service.startAutosave(path));
+        assertFalse(service.isAutosaving());
+        assertTrue(service.startAutosave(other));
+        assertTrue(service.stopAutosave());
+        service.stopJournal();
+
+        assertTrue(service.startAutosave(path));
+        assertFalse(service.startJournal(dir.resolve(".").resolve("inventory.txt").toString()));
+        assertFalse(service.isJournaling());
+        assertTrue(service.stopAutosave());
+    }
+}